@@ -104,6 +104,7 @@ public class Main {
         gymSecretary.notify(s4, "The instructor will be a few minutes late for the session");
         gymSecretary.notify("01-01-2025", "Heavy traffic reported around the gym today. Plan ahead to avoid missing your session!");
         gymSecretary.notify("Happy New Year to all our valued clients!");
+        gymSecretary.flush();
 
         gymSecretary.paySalaries();
 
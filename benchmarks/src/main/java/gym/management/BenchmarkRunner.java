@@ -0,0 +1,44 @@
+package gym.management;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.InputStream;
+import java.util.Properties;
+
+/**
+ * Runs the gym benchmarks with the allocation profiler and writes the results as JSON,
+ * one file per gym version, so throughput and allocation rate can be compared between releases.
+ * Any JMH command line option (e.g. a benchmark name filter or {@code -p clients=1000}) is passed through.
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        Options options = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .resultFormat(ResultFormatType.JSON)
+                .result("target/jmh-result-" + gymVersion() + ".json")
+                .build();
+        new Runner(options).run();
+    }
+
+    /**
+     * Reads the version of the gym the benchmarks were built against.
+     *
+     * @return the gym version
+     */
+    private static String gymVersion() throws Exception {
+        Properties properties = new Properties();
+        try (InputStream in = BenchmarkRunner.class.getResourceAsStream("benchmark.properties")) {
+            if (in != null) {
+                properties.load(in);
+            }
+        }
+        return properties.getProperty("version", "unknown");
+    }
+}
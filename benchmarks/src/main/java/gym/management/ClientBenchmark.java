@@ -0,0 +1,108 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.customers.Person;
+import gym.management.Sessions.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the paths whose cost depends on the number of registered clients:
+ * registering and unregistering clients, booking sessions, gym-wide notifications and the gym report.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClientBenchmark {
+    private static final int SPARE_PERSONS = 1024;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int clients;
+
+    private GymFixture fixture;
+    private Person[] spare;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixture = new GymFixture(clients, 64);
+        spare = new Person[SPARE_PERSONS];
+        for (int i = 0; i < spare.length; i++) {
+            spare[i] = GymFixture.newPerson(clients + i);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    /**
+     * Registers a new client and unregisters it again, keeping the gym at its size.
+     */
+    @Benchmark
+    public Client registerAndUnregisterClient() throws Exception {
+        Person p = spare[next++ & (SPARE_PERSONS - 1)];
+        Client c = fixture.secretary.registerClient(p);
+        fixture.secretary.unregisterClient(c);
+        return c;
+    }
+
+    /**
+     * Books a client into a session, then takes the booking back so the session never fills up.
+     */
+    @Benchmark
+    public int registerClientToLesson() throws Exception {
+        int i = next++;
+        Client c = fixture.clients[i % fixture.clients.length];
+        Session s = fixture.sessions[i & (fixture.sessions.length - 1)];
+        fixture.secretary.registerClientToLesson(c, s);
+        s.unregisterClient(c);
+        fixture.gym.enrollments.remove(c, s);
+        c.getBalance().addBalance(s.getPrice());
+        return s.getParticipantCount();
+    }
+
+    /**
+     * Sends a message to every client and waits for it to be delivered.
+     */
+    @Benchmark
+    public void notifyAllClients() {
+        fixture.secretary.notify("Gym-wide announcement");
+        fixture.secretary.flush();
+    }
+
+    /**
+     * Renders the full gym report.
+     */
+    @Benchmark
+    public String gymToString() {
+        return fixture.gym.toString();
+    }
+
+    /**
+     * Streams the full gym report to a writer that discards it.
+     */
+    @Benchmark
+    public void writeReport() throws IOException {
+        new GymReportWriter(fixture.gym, Writer.nullWriter()).writeAll();
+    }
+}
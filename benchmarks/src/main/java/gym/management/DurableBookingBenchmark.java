@@ -0,0 +1,87 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.management.Sessions.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compares booking throughput under 64 concurrent threads with and without the write-ahead log.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+public class DurableBookingBenchmark {
+    @Param({"false", "true"})
+    public boolean writeAheadLog;
+
+    private GymFixture fixture;
+    private Path logDir;
+    private final AtomicInteger next = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixture = new GymFixture(10000, 64);
+        if (writeAheadLog) {
+            logDir = Files.createTempDirectory("gym-wal");
+            fixture.gym.setWriteAheadLog(new WriteAheadLog(logDir));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        fixture.close();
+        if (logDir != null) {
+            try (Stream<Path> files = Files.walk(logDir)) {
+                for (Path p : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                    Files.delete(p);
+                }
+            }
+            logDir = null;
+        }
+    }
+
+    /**
+     * Books a client into a session, then takes the booking back so the session never fills up.
+     */
+    @Benchmark
+    public int registerClientToLesson() throws Exception {
+        int i = next.getAndIncrement();
+        Client c = fixture.clients[i % fixture.clients.length];
+        Session s = fixture.sessions[i & (fixture.sessions.length - 1)];
+        fixture.secretary.registerClientToLesson(c, s);
+        fixture.gym.sessionLocks.get(s).lock();
+        try {
+            s.unregisterClient(c);
+            fixture.gym.enrollments.remove(c, s);
+        } finally {
+            fixture.gym.sessionLocks.get(s).unlock();
+        }
+        c.getBalance().addBalance(s.getPrice());
+        return s.getParticipantCount();
+    }
+}
@@ -0,0 +1,91 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.Instructor;
+import gym.customers.Person;
+import gym.management.Sessions.ForumType;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionType;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Builds gyms of a given size for the benchmarks. Sessions are scheduled in the future so bookings can succeed.
+ */
+class GymFixture {
+    private static final DateTimeFormatter SESSION_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+    private static final LocalDateTime FIRST_SESSION = LocalDateTime.now().plusYears(1).withHour(8).withMinute(0);
+
+    final Gym gym;
+    final Secretary secretary;
+    final Instructor instructor;
+    final Client[] clients;
+    final Session[] sessions;
+
+    /**
+     * Builds a gym.
+     *
+     * @param clientCount  the number of registered clients
+     * @param sessionCount the number of scheduled sessions
+     */
+    GymFixture(int clientCount, int sessionCount) throws Exception {
+        gym = new Gym();
+        gym.setName("Benchmark Gym");
+        gym.setSecretary(new Person("Secretary", 0, Gender.Female, "01-01-1980"), 9000);
+        secretary = gym.getSecretary();
+        instructor = secretary.hireInstructor(new Person("Instructor", 0, Gender.Male, "01-01-1985"), 90,
+                new ArrayList<>(Arrays.asList(SessionType.values())));
+        clients = new Client[clientCount];
+        for (int i = 0; i < clientCount; i++) {
+            clients[i] = secretary.registerClient(newPerson(i));
+        }
+        sessions = new Session[sessionCount];
+        for (int i = 0; i < sessionCount; i++) {
+            sessions[i] = secretary.addSession(SessionType.Pilates, sessionTime(i), ForumType.All, instructor);
+        }
+    }
+
+    /**
+     * Creates a person old enough to register, with a balance large enough for many bookings.
+     *
+     * @param i a sequence number used to vary gender and birth date
+     * @return the new person
+     */
+    static Person newPerson(int i) {
+        String birthDate = String.format("%02d-%02d-%d", 1 + i % 28, 1 + i % 12, 1950 + i % 50);
+        return new Person("Client" + i, 1_000_000, i % 2 == 0 ? Gender.Female : Gender.Male, birthDate);
+    }
+
+    /**
+     * Formats the start time of the i-th session; sessions are an hour apart.
+     *
+     * @param i the session number
+     * @return the session time in the format expected by {@link Secretary#addSession}
+     */
+    static String sessionTime(int i) {
+        return FIRST_SESSION.plusHours(i).format(SESSION_FORMAT);
+    }
+
+    /**
+     * Adds clients to a session directly, ignoring its capacity, to build very large sessions.
+     *
+     * @param session the session to fill
+     * @param count   the number of participants to add
+     */
+    void fill(Session session, int count) {
+        for (int i = 0; i < count; i++) {
+            session.registerClient(clients[i % clients.length]);
+        }
+    }
+
+    /**
+     * Releases the gym's notification lanes, write-ahead log and actions history.
+     */
+    void close() {
+        gym.close();
+    }
+}
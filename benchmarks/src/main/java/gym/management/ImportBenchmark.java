@@ -0,0 +1,68 @@
+package gym.management;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures importing a CSV of clients into an empty gym, compared with registering the same clients one by one.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ImportBenchmark {
+    @Param({"100000", "1000000"})
+    public int clientCount;
+
+    private String csv;
+    private GymFixture fixture;
+
+    @Setup(Level.Trial)
+    public void buildCsv() {
+        StringBuilder sb = new StringBuilder(clientCount * 40).append("name,balance,gender,birthDate\n");
+        for (int i = 0; i < clientCount; i++) {
+            sb.append("Client").append(i).append(",1000000,").append(i % 2 == 0 ? "Female" : "Male").append(',')
+                    .append(String.format("%02d-%02d-%d", 1 + i % 28, 1 + i % 12, 1950 + i % 50)).append('\n');
+        }
+        csv = sb.toString();
+    }
+
+    @Setup(Level.Invocation)
+    public void setUp() throws Exception {
+        fixture = new GymFixture(0, 0);
+    }
+
+    @TearDown(Level.Invocation)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    @Benchmark
+    public ImportResult importClients() throws Exception {
+        return fixture.secretary.importClients(new StringReader(csv));
+    }
+
+    @Benchmark
+    public int registerClients() throws Exception {
+        for (int i = 0; i < clientCount; i++) {
+            fixture.secretary.registerClient(GymFixture.newPerson(i));
+        }
+        return fixture.gym.clients.size();
+    }
+}
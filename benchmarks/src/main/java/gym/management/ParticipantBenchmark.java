@@ -0,0 +1,79 @@
+package gym.management;
+
+import gym.management.Sessions.Session;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the paths whose cost depends on the number of participants in a session:
+ * session notifications and the duplicate check of a booking.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParticipantBenchmark {
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int participantsPerSession;
+
+    private GymFixture fixture;
+    private Session session;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixture = new GymFixture(participantsPerSession, 1);
+        session = fixture.sessions[0];
+        fixture.fill(session, participantsPerSession);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    /**
+     * Notifies every participant of a large session and waits for delivery.
+     */
+    @Benchmark
+    public void notifySession() {
+        fixture.secretary.notify(session, "The instructor will be a few minutes late");
+        fixture.secretary.flush();
+    }
+
+    /**
+     * Books a client who is already in the large session, which must be rejected as a duplicate.
+     */
+    @Benchmark
+    public boolean registerDuplicateToLesson() throws Exception {
+        try {
+            fixture.secretary.registerClientToLesson(fixture.clients[participantsPerSession / 2], session);
+            return false;
+        } catch (gym.Exception.DuplicateClientException e) {
+            return true;
+        }
+    }
+
+    /**
+     * Books a client who is already in the large session through the non-throwing API, for comparison with
+     * {@link #registerDuplicateToLesson}.
+     */
+    @Benchmark
+    public int tryRegisterDuplicateToLesson() {
+        return fixture.secretary.tryRegisterClientToLesson(fixture.clients[participantsPerSession / 2], session);
+    }
+}
@@ -0,0 +1,111 @@
+package gym.management;
+
+import gym.customers.Instructor;
+import gym.management.Sessions.ForumType;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the paths whose cost depends on the number of scheduled sessions:
+ * adding sessions, date-targeted notifications and paying salaries.
+ * The gym is built once per trial, so the sessions added by {@link #addSession()} accumulate over its iterations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SessionBenchmark {
+    private static final int CLIENTS = 1000;
+    private static final int PARTICIPANTS = 20;
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int sessions;
+
+    private GymFixture fixture;
+    private String busyDay;
+    private int next;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        fixture = new GymFixture(CLIENTS, sessions);
+        for (Session s : fixture.sessions) {
+            fixture.fill(s, PARTICIPANTS);
+        }
+        busyDay = GymFixture.sessionTime(sessions / 2).substring(0, 10);
+        next = sessions;
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        fixture.close();
+    }
+
+    /**
+     * Adds one more session to a gym that already has the configured number of sessions.
+     */
+    @Benchmark
+    public Session addSession() throws Exception {
+        return fixture.secretary.addSession(SessionType.Ninja, GymFixture.sessionTime(next++), ForumType.All, fixture.instructor);
+    }
+
+    /**
+     * Notifies the participants of every session on one day and waits for delivery.
+     */
+    @Benchmark
+    public void notifyDate() {
+        fixture.secretary.notify(busyDay, "Parking lot closed today");
+        fixture.secretary.flush();
+    }
+
+    /**
+     * Pays the secretary and the instructor of all sessions. The sessions are unpaid again before every call.
+     */
+    @Benchmark
+    public long paySalaries(UnpaidSessions unpaid) {
+        fixture.secretary.paySalaries();
+        return fixture.secretary.getBalanceGym();
+    }
+
+    /**
+     * The instructor's unpaid sessions when the gym was built, recorded again before every payroll run so that
+     * each run pays for all of them.
+     */
+    @State(Scope.Benchmark)
+    public static class UnpaidSessions {
+        private Instructor instructor;
+        private NavigableMap<LocalDate, Integer> unpaid;
+
+        @Setup(Level.Trial)
+        public void record(SessionBenchmark benchmark) {
+            instructor = benchmark.fixture.instructor;
+            unpaid = benchmark.fixture.gym.payroll.getUnpaid(instructor);
+        }
+
+        @Setup(Level.Invocation)
+        public void restore(SessionBenchmark benchmark) {
+            for (Map.Entry<LocalDate, Integer> day : unpaid.entrySet()) {
+                benchmark.fixture.gym.payroll.addSessions(instructor, day.getKey(), day.getValue());
+            }
+        }
+    }
+}
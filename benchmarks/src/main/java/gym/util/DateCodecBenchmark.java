@@ -0,0 +1,71 @@
+package gym.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares {@link DateCodec} with the way birth dates and session times used to be parsed:
+ * a regular expression match and a new formatter per call.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DateCodecBenchmark {
+    public String isoBirthDate = "1990-07-15";
+    public String birthDate = "15-07-1990";
+    public String sessionTime = "15-07-2030 18:30";
+
+    @Benchmark
+    public LocalDate parseBirthDateWithRegex() {
+        return regexBirthDate(birthDate);
+    }
+
+    @Benchmark
+    public LocalDate parseIsoBirthDateWithRegex() {
+        return regexBirthDate(isoBirthDate);
+    }
+
+    @Benchmark
+    public LocalDate parseBirthDate() {
+        return DateCodec.parseBirthDate(birthDate);
+    }
+
+    @Benchmark
+    public LocalDate parseIsoBirthDate() {
+        return DateCodec.parseBirthDate(isoBirthDate);
+    }
+
+    @Benchmark
+    public LocalDateTime parseSessionTimeWithFormatter() {
+        return LocalDateTime.parse(sessionTime, DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm"));
+    }
+
+    @Benchmark
+    public LocalDateTime parseSessionTime() {
+        return DateCodec.parseDateTime(sessionTime);
+    }
+
+    private static LocalDate regexBirthDate(String birthDate) {
+        if (birthDate.matches("\\d{4}-\\d{2}-\\d{2}")) {
+            return LocalDate.parse(birthDate, DateTimeFormatter.ofPattern("yyyy-MM-dd"));
+        } else if (birthDate.matches("\\d{2}-\\d{2}-\\d{4}")) {
+            return LocalDate.parse(birthDate, DateTimeFormatter.ofPattern("dd-MM-yyyy"));
+        }
+        throw new IllegalArgumentException("Invalid birth date format: " + birthDate);
+    }
+}
@@ -7,6 +7,16 @@ public class ClientNotRegisteredException extends Exception {
     public ClientNotRegisteredException(String message) {
         super(message);
     }
-}
-
 
+    /**
+     * Constructs the exception, optionally without a stack trace. Booking a client who left the gym is a normal
+     * outcome of a booking request, so the booking path skips filling in the trace. Suppression is disabled as well,
+     * since the exception never closes resources.
+     *
+     * @param message the detail message
+     * @param writableStackTrace whether the stack trace is filled in
+     */
+    public ClientNotRegisteredException(String message, boolean writableStackTrace) {
+        super(message, null, false, writableStackTrace);
+    }
+}
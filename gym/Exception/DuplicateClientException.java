@@ -4,4 +4,15 @@ public class DuplicateClientException extends Exception {
   public DuplicateClientException(String message) {
     super(message);
   }
+
+  /**
+   * Constructs the exception, optionally without a stack trace, e.g. for a repeated booking, which callers expect
+   * and handle rather than debug. Suppressed exceptions are not recorded.
+   *
+   * @param message the detail message
+   * @param writableStackTrace whether the stack trace is filled in
+   */
+  public DuplicateClientException(String message, boolean writableStackTrace) {
+    super(message, null, false, writableStackTrace);
+  }
 }
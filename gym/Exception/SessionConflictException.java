@@ -0,0 +1,11 @@
+package gym.Exception;
+
+/**
+ * Thrown when a session would overlap another session of the same instructor.
+ * It is unchecked so that adding the check did not change the signature of the methods that add sessions.
+ */
+public class SessionConflictException extends RuntimeException {
+    public SessionConflictException(String message) {
+        super(message);
+    }
+}
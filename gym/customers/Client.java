@@ -1,20 +1,42 @@
 /**
  * The Client class represents a gym client who is a person and an observer.
- * Clients can receive notifications and manage their scheduled sessions.
+ * Clients can receive notifications; the sessions they are enrolled in are tracked by their gym.
  */
 package gym.customers;
 
 import gym.management.Observer;
-import gym.management.Sessions.Session;
-import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
+import gym.util.GymClock;
+import java.time.LocalDate;
 import java.util.List;
 
 public class Client extends Person implements Observer {
     /**
-     * List of sessions the client is registered for.
+     * Eligibility bit set for male clients.
      */
-    private List<Session> sessions;
+    public static final int MALE = 1;
+
+    /**
+     * Eligibility bit set for female clients.
+     */
+    public static final int FEMALE = 1 << 1;
+
+    /**
+     * Eligibility bit set for clients aged 65 or over.
+     */
+    public static final int SENIOR = 1 << 2;
+
+    /**
+     * Eligibility bit set for clients aged 18 or over.
+     */
+    public static final int ADULT = 1 << 3;
+
+    private static final int ELIGIBILITY_BITS = 8;
+
+    /**
+     * The eligibility bits of the client in the low byte and the epoch day they were computed for above it,
+     * kept in one field so readers always see a matching pair.
+     */
+    private volatile long eligibility = Long.MIN_VALUE;
 
     /**
      * Constructs a Client object based on a Person instance.
@@ -22,8 +44,7 @@ public class Client extends Person implements Observer {
      * @param p the Person instance to create a Client from.
      */
     public Client(Person p) {
-        super(p.getName(), p.getBalance(), p.getGender(), p.getBirthDate().toString(), p.getId());
-        this.sessions = new ArrayList<>();
+        super(p.getName(), p.getBalance(), p.getGender(), p.getBirthDate(), p.getId());
     }
 
     /**
@@ -36,21 +57,28 @@ public class Client extends Person implements Observer {
     }
 
     /**
-     * Retrieves the list of sessions the client is registered for.
+     * Retrieves the eligibility bits of the client ({@link #MALE}, {@link #FEMALE}, {@link #SENIOR}, {@link #ADULT}).
+     * The bits are computed once per day, since the age bits can only change when the day changes.
      *
-     * @return a list of sessions.
+     * @param today the current day.
+     * @return the eligibility bits for that day.
      */
-    public List<Session> getSessions() {
-        return sessions;
-    }
-
-    /**
-     * Adds a session to the client's list of sessions.
-     *
-     * @param session the session to add.
-     */
-    public void addSession(Session session) {
-        sessions.add(session);
+    public int getEligibility(LocalDate today) {
+        long day = today.toEpochDay();
+        long e = eligibility;
+        if (e >> ELIGIBILITY_BITS != day) {
+            int age = getAge(today);
+            int mask = getGender() == Gender.Male ? MALE : FEMALE;
+            if (age >= 65) {
+                mask |= SENIOR;
+            }
+            if (age >= 18) {
+                mask |= ADULT;
+            }
+            e = day << ELIGIBILITY_BITS | mask;
+            eligibility = e;
+        }
+        return (int) e & ((1 << ELIGIBILITY_BITS) - 1);
     }
 
     /**
@@ -72,13 +100,24 @@ public class Client extends Person implements Observer {
     }
 
     /**
-     * Updates the client with a new notification message.
+     * Updates the client with a new notification message, received at the system clock's current time.
      *
      * @param message the notification message to add.
      */
     @Override
     public void update(String message) {
-        getNotifications().add(message);
+        update(message, GymClock.system().millis());
+    }
+
+    /**
+     * Updates the client with a new notification message sent at a given time.
+     *
+     * @param message the notification message to add.
+     * @param now     the time the message was sent, in epoch milliseconds.
+     */
+    @Override
+    public void update(String message, long now) {
+        getInbox().add(message, now);
     }
 
     /**
@@ -88,12 +127,7 @@ public class Client extends Person implements Observer {
      */
     @Override
     public String toString() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-        return "ID: " + super.getId() +
-                " | Name: " + getName() +
-                " | Gender: " + super.getGender().toString() +
-                " | Birthday: " + super.getBirthDate().format(formatter) +
-                " | Age: " + super.getAge() +
-                " | Balance: " + super.getBalanceInt();
+        // a client does not know its gym, so the age is taken on the system clock
+        return describeTo(new StringBuilder(), GymClock.system().today()).toString();
     }
 }
@@ -7,10 +7,10 @@ package gym.customers;
 
 import gym.management.Sessions.Session;
 import gym.management.Sessions.SessionType;
-import java.time.format.DateTimeFormatter;
+import gym.util.GymClock;
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.stream.Collectors;
 
 public class Instructor extends Person {
     private int salary; // The hourly salary of the instructor.
@@ -25,7 +25,7 @@ public class Instructor extends Person {
      * @param expertise the list of session types the instructor is certified to teach.
      */
     public Instructor(Person person, int salary, List<SessionType> expertise) {
-        super(person.getName(), person.getBalance(), person.getGender(), person.getBirthDate().toString(), person.getId());
+        super(person.getName(), person.getBalance(), person.getGender(), person.getBirthDate(), person.getId());
         this.salary = salary;
         this.expertise = expertise;
         this.sessions = new ArrayList<>();
@@ -97,17 +97,29 @@ public class Instructor extends Person {
      */
     @Override
     public String toString() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-        String expertiseList = expertise.stream().map(Enum::toString).collect(Collectors.joining(", "));
+        // an instructor does not know their gym, so the age is taken on the system clock
+        return describeTo(new StringBuilder(), GymClock.system().today()).toString();
+    }
 
-        return "ID: " + super.getId() +
-                " | Name: " + super.getName() +
-                " | Gender: " + super.getGender().toString() +
-                " | Birthday: " + super.getBirthDate().format(formatter) +
-                " | Age: " + super.getAge() +
-                " | Balance: " + super.getBalanceInt() +
-                " | Role: Instructor" +
-                " | Salary per Hour: " + salary +
-                " | Certified Classes: " + expertiseList;
+    /**
+     * Appends the details of the instructor, including their role, salary and expertise, to a builder.
+     *
+     * @param sb    the builder to append to.
+     * @param today the day to calculate the age on.
+     * @return the same builder.
+     */
+    @Override
+    public StringBuilder describeTo(StringBuilder sb, LocalDate today) {
+        super.describeTo(sb, today)
+                .append(" | Role: Instructor")
+                .append(" | Salary per Hour: ").append(salary)
+                .append(" | Certified Classes: ");
+        for (int i = 0; i < expertise.size(); i++) {
+            if (i > 0) {
+                sb.append(", ");
+            }
+            sb.append(expertise.get(i));
+        }
+        return sb;
     }
 }
@@ -0,0 +1,130 @@
+package gym.customers;
+
+import java.util.Arrays;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Stores every distinct notification text once and hands out a compact int ID for it.
+ * Inboxes keep these IDs instead of references to the texts, so a message broadcast to every client
+ * costs one int per client and is stored only once.
+ * <p>
+ * The table is shared by all gyms, like the persons whose inboxes use it, and is bounded by what the inboxes
+ * keep: every inbox holds a reference to each message it keeps and releases it when the message is pushed out,
+ * expires or the inbox is discarded. A message nobody refers to any more is removed and its ID is reused.
+ */
+public final class MessageTable {
+    private static final ConcurrentHashMap<String, Entry> entries = new ConcurrentHashMap<>();
+    private static volatile Entry[] byId = new Entry[64];
+    private static int[] freeIds = new int[16];
+    private static int freeCount;
+    private static int count;
+
+    private MessageTable() {
+    }
+
+    /**
+     * Retrieves the ID of a message and takes a reference to it, adding the message to the table if it is new.
+     * The reference must be given back with {@link #release(int)}.
+     *
+     * @param message the message text
+     * @return the ID of the message
+     */
+    public static int retain(String message) {
+        Entry entry = entries.get(message);
+        if (entry != null && entry.tryRetain()) {
+            return entry.id;
+        }
+        synchronized (MessageTable.class) {
+            entry = entries.get(message);
+            if (entry != null && entry.tryRetain()) {
+                return entry.id;
+            }
+            int id = freeCount > 0 ? freeIds[--freeCount] : count++;
+            Entry[] current = byId;
+            if (id == current.length) {
+                current = Arrays.copyOf(current, id * 2);
+            }
+            entry = new Entry(id, message);
+            current[id] = entry;
+            byId = current;
+            entries.put(message, entry);
+            return id;
+        }
+    }
+
+    /**
+     * Takes another reference to a message the caller already holds a reference to.
+     *
+     * @param id the ID of the message
+     */
+    public static void retain(int id) {
+        byId[id].refs.incrementAndGet();
+    }
+
+    /**
+     * Gives back a reference to a message. The message is removed once no reference is left.
+     *
+     * @param id the ID of the message
+     */
+    public static void release(int id) {
+        Entry entry = byId[id];
+        if (entry.refs.decrementAndGet() != 0) {
+            return;
+        }
+        synchronized (MessageTable.class) {
+            // retain(String) never takes a reference once the count reached zero, so the entry is dead
+            entry.refs.set(-1);
+            entries.remove(entry.text, entry);
+            byId[id] = null;
+            if (freeCount == freeIds.length) {
+                freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+            }
+            freeIds[freeCount++] = id;
+        }
+    }
+
+    /**
+     * Retrieves the text of a message. The caller must hold a reference to the message.
+     *
+     * @param id the ID of the message
+     * @return the message text
+     */
+    public static String textOf(int id) {
+        return byId[id].text;
+    }
+
+    /**
+     * Retrieves the number of messages currently stored.
+     *
+     * @return the number of distinct messages referenced by some inbox
+     */
+    public static int size() {
+        return entries.size();
+    }
+
+    /**
+     * A stored message and the number of references to it; -1 once it has been removed.
+     */
+    private static final class Entry {
+        private final int id;
+        private final String text;
+        private final AtomicInteger refs = new AtomicInteger(1);
+
+        Entry(int id, String text) {
+            this.id = id;
+            this.text = text;
+        }
+
+        boolean tryRetain() {
+            int n;
+            do {
+                n = refs.get();
+                if (n <= 0) {
+                    return false;
+                }
+            } while (!refs.compareAndSet(n, n + 1));
+            return true;
+        }
+    }
+}
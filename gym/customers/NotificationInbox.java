@@ -0,0 +1,302 @@
+package gym.customers;
+
+import gym.util.GymClock;
+
+import java.lang.ref.Cleaner;
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * The notifications received by a person, kept as message IDs from the {@link MessageTable} in a ring buffer.
+ * The inbox keeps at most a configured number of the latest messages, and optionally drops messages older than
+ * a time to live, so the memory used per person is bounded.
+ * <p>
+ * The inbox holds a reference in the table to every message it keeps, and gives it back when the message is
+ * pushed out or expires, or when the inbox itself is garbage collected, so the table only holds messages that
+ * are still in some inbox.
+ * <p>
+ * The default retention is read from the {@code gym.notifications.retention} (number of messages) and
+ * {@code gym.notifications.ttlMillis} (0 for no expiry) system properties.
+ */
+public class NotificationInbox {
+    private static final int INITIAL_CAPACITY = 4;
+
+    /** Gives back the references of inboxes that were discarded. */
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    private static volatile int defaultRetention = Integer.getInteger("gym.notifications.retention", 100);
+    private static volatile long defaultTtlMillis = Long.getLong("gym.notifications.ttlMillis", 0L);
+
+    private final int retention;
+    private final long ttlMillis;
+    private final Ring ring;
+
+    /**
+     * Constructs an empty inbox with the default retention.
+     */
+    public NotificationInbox() {
+        this(defaultRetention, defaultTtlMillis);
+    }
+
+    /**
+     * Constructs an empty inbox.
+     *
+     * @param retention the maximum number of messages kept
+     * @param ttlMillis how long a message is kept, in milliseconds, or 0 to keep it until it is pushed out
+     */
+    public NotificationInbox(int retention, long ttlMillis) {
+        if (retention < 1) {
+            throw new IllegalArgumentException("Retention must be at least one message: " + retention);
+        }
+        this.retention = retention;
+        this.ttlMillis = ttlMillis;
+        this.ring = new Ring(Math.min(INITIAL_CAPACITY, retention), ttlMillis > 0);
+        CLEANER.register(this, ring);
+    }
+
+    /**
+     * Sets the retention of inboxes created from now on.
+     *
+     * @param retention the maximum number of messages kept
+     * @param ttlMillis how long a message is kept, in milliseconds, or 0 to keep it until it is pushed out
+     */
+    public static void setDefaultRetention(int retention, long ttlMillis) {
+        if (retention < 1) {
+            throw new IllegalArgumentException("Retention must be at least one message: " + retention);
+        }
+        defaultRetention = retention;
+        defaultTtlMillis = ttlMillis;
+    }
+
+    /**
+     * Adds a message to the inbox at the system clock's current time, dropping the oldest message if the inbox
+     * is full.
+     *
+     * @param message the message text
+     * @deprecated the system clock cannot be set; use {@link #add(String, long)} with the time of the sending gym's
+     * clock
+     */
+    @Deprecated
+    public void add(String message) {
+        add(message, GymClock.system().millis());
+    }
+
+    /**
+     * Adds a message that arrived at a given time, dropping the oldest message if the inbox is full.
+     *
+     * @param message the message text
+     * @param now     the arrival time in epoch milliseconds, ignored if messages never expire
+     */
+    public void add(String message, long now) {
+        int id = MessageTable.retain(message);
+        synchronized (ring) {
+            ring.add(id, now, retention);
+        }
+    }
+
+    /**
+     * Adds a message that arrived at a given time, e.g. when restoring a saved inbox.
+     * The caller must hold a reference to the message; the inbox takes its own.
+     *
+     * @param id  the ID of the message in the {@link MessageTable}
+     * @param now the arrival time in epoch milliseconds, ignored if messages never expire
+     */
+    public void add(int id, long now) {
+        MessageTable.retain(id);
+        synchronized (ring) {
+            ring.add(id, now, retention);
+        }
+    }
+
+    /**
+     * Retrieves the number of messages kept at the system clock's current time.
+     *
+     * @return the number of messages
+     * @deprecated the system clock cannot be set; use {@link #size(long)} with the time of the gym's clock
+     */
+    @Deprecated
+    public int size() {
+        return size(GymClock.system().millis());
+    }
+
+    /**
+     * Retrieves the number of messages kept at a given time.
+     *
+     * @param now the current time in epoch milliseconds
+     * @return the number of messages
+     */
+    public int size(long now) {
+        synchronized (ring) {
+            expire(now);
+            return ring.size;
+        }
+    }
+
+    /**
+     * Returns the messages kept at the system clock's current time, oldest first.
+     *
+     * @return an unmodifiable list of the message texts
+     * @deprecated the system clock cannot be set; use {@link #getMessages(long)} with the time of the gym's clock
+     */
+    @Deprecated
+    public List<String> getMessages() {
+        return getMessages(GymClock.system().millis());
+    }
+
+    /**
+     * Returns the messages kept at a given time, oldest first. Later changes to the inbox do not affect the list.
+     *
+     * @param now the current time in epoch milliseconds
+     * @return an unmodifiable list of the message texts
+     */
+    public List<String> getMessages(long now) {
+        String[] snapshot;
+        synchronized (ring) {
+            expire(now);
+            // the texts are looked up now, while the inbox still holds its references to them
+            snapshot = new String[ring.size];
+            for (int i = 0; i < snapshot.length; i++) {
+                snapshot[i] = MessageTable.textOf(ring.ids[ring.slot(i)]);
+            }
+        }
+        return new AbstractList<String>() {
+            @Override
+            public String get(int index) {
+                return snapshot[index];
+            }
+
+            @Override
+            public int size() {
+                return snapshot.length;
+            }
+        };
+    }
+
+    /**
+     * Passes the messages kept at the system clock's current time to a visitor, oldest first.
+     *
+     * @param visitor the visitor receiving the message IDs and arrival times
+     * @deprecated the system clock cannot be set; use {@link #forEach(long, Visitor)} with the time of the gym's
+     * clock
+     */
+    @Deprecated
+    public void forEach(Visitor visitor) {
+        forEach(GymClock.system().millis(), visitor);
+    }
+
+    /**
+     * Passes the messages kept at a given time to a visitor, oldest first, e.g. to save the inbox.
+     * The message IDs are only valid during the visit.
+     *
+     * @param now     the current time in epoch milliseconds
+     * @param visitor the visitor receiving the message IDs and arrival times
+     */
+    public void forEach(long now, Visitor visitor) {
+        synchronized (ring) {
+            expire(now);
+            for (int i = 0; i < ring.size; i++) {
+                int slot = ring.slot(i);
+                visitor.visit(ring.ids[slot], ring.times == null ? 0 : ring.times[slot]);
+            }
+        }
+    }
+
+    /**
+     * Drops the messages whose time to live has passed. Messages are kept in arrival order,
+     * so only the oldest ones need to be checked.
+     *
+     * @param now the current time in epoch milliseconds
+     */
+    private void expire(long now) {
+        if (ring.times == null) {
+            return;
+        }
+        long cutoff = now - ttlMillis;
+        while (ring.size > 0 && ring.times[ring.head] < cutoff) {
+            ring.removeOldest();
+        }
+    }
+
+    /**
+     * The messages of an inbox. Kept apart from the inbox so the cleaner can release them
+     * without keeping the inbox reachable; guarded by its own monitor.
+     */
+    private static final class Ring implements Runnable {
+        private int[] ids;
+        private long[] times;
+        private int head;
+        private int size;
+
+        Ring(int capacity, boolean timed) {
+            ids = new int[capacity];
+            times = timed ? new long[capacity] : null;
+        }
+
+        int slot(int index) {
+            return (head + index) % ids.length;
+        }
+
+        void add(int id, long now, int retention) {
+            if (size == ids.length && size < retention) {
+                grow(retention);
+            }
+            if (size == ids.length) {
+                removeOldest();
+            }
+            int slot = slot(size);
+            ids[slot] = id;
+            if (times != null) {
+                times[slot] = now;
+            }
+            size++;
+        }
+
+        void removeOldest() {
+            MessageTable.release(ids[head]);
+            head = (head + 1) % ids.length;
+            size--;
+        }
+
+        /**
+         * Doubles the ring buffer, up to the retention limit, moving the messages to the start of the new buffer.
+         */
+        private void grow(int retention) {
+            int capacity = (int) Math.min(retention, ids.length * 2L);
+            int[] newIds = new int[capacity];
+            long[] newTimes = times == null ? null : new long[capacity];
+            for (int i = 0; i < size; i++) {
+                int slot = slot(i);
+                newIds[i] = ids[slot];
+                if (newTimes != null) {
+                    newTimes[i] = times[slot];
+                }
+            }
+            ids = newIds;
+            times = newTimes;
+            head = 0;
+        }
+
+        /**
+         * Gives back the references of all messages, once the inbox is unreachable.
+         */
+        @Override
+        public synchronized void run() {
+            while (size > 0) {
+                removeOldest();
+            }
+        }
+    }
+
+    /**
+     * Receives the messages of an inbox.
+     */
+    public interface Visitor {
+        /**
+         * Receives one message.
+         *
+         * @param id   the ID of the message in the {@link MessageTable}
+         * @param time the arrival time in epoch milliseconds, 0 if messages never expire
+         */
+        void visit(int id, long time);
+    }
+}
@@ -1,10 +1,15 @@
 package gym.customers;
 
+import gym.util.DateCodec;
+import gym.util.GymClock;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.time.LocalDate;
 import java.time.Period;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Represents a person in the gym system with details such as name, balance, birth date, gender, and notifications.
@@ -14,9 +19,23 @@ public class Person {
     private Balance balance;
     private LocalDate birthDate;
     private Gender gender;
-    private static int nextId = 1111;
+    private static final AtomicInteger nextId = new AtomicInteger(1111);
+
+    /**
+     * The format birthdays are displayed in.
+     */
+    protected static final DateTimeFormatter BIRTHDAY_FORMAT = DateCodec.DATE_FORMAT;
     private int id;
-    private List<String> notifications;
+
+    /**
+     * The person's notifications, created when the first one is delivered since most persons never receive any.
+     */
+    private volatile NotificationInbox notifications;
+
+    /**
+     * The age last calculated and the days it stays valid for, so the age is only recalculated on birthdays.
+     */
+    private volatile AgeCache ageCache;
 
     /**
      * Constructor for creating a Person with auto-generated ID.
@@ -30,9 +49,24 @@ public class Person {
         this.name = name;
         this.balance = new Balance(balance);
         this.birthDate = parseBirthDate(birthDate);
-        this.id = nextId++;
+        this.id = nextId.getAndIncrement();
+        this.gender = gender;
+    }
+
+    /**
+     * Constructor for creating a Person with auto-generated ID and an already parsed birth date.
+     *
+     * @param name      the name of the person.
+     * @param balance   the balance amount of the person.
+     * @param gender    the gender of the person.
+     * @param birthDate the birth date of the person.
+     */
+    public Person(String name, int balance, Gender gender, LocalDate birthDate) {
+        this.name = name;
+        this.balance = new Balance(balance);
+        this.birthDate = birthDate;
+        this.id = nextId.getAndIncrement();
         this.gender = gender;
-        this.notifications = new ArrayList<>();
     }
 
     /**
@@ -50,16 +84,83 @@ public class Person {
         this.birthDate = parseBirthDate(birthDate);
         this.gender = gender;
         this.id = id;
-        this.notifications = new ArrayList<>();
     }
 
     /**
-     * Retrieves the list of notifications for this person.
+     * Constructor for creating a Person with a specified ID and an already parsed birth date,
+     * e.g. for another role of an existing person or when loading a saved gym.
+     *
+     * @param name      the name of the person.
+     * @param balance   the balance object representing the person's balance.
+     * @param gender    the gender of the person.
+     * @param birthDate the birth date of the person.
+     * @param id        the ID of the person.
+     */
+    public Person(String name, Balance balance, Gender gender, LocalDate birthDate, int id) {
+        this.name = name;
+        this.balance = balance;
+        this.birthDate = birthDate;
+        this.gender = gender;
+        this.id = id;
+    }
+
+    /**
+     * Makes sure IDs generated from now on are greater than the given ID, e.g. after persons with
+     * existing IDs have been loaded from a saved gym.
+     *
+     * @param id the largest ID already in use.
+     */
+    public static void reserveIdsUpTo(int id) {
+        nextId.accumulateAndGet(id + 1, Math::max);
+    }
+
+    /**
+     * Retrieves the notifications kept for this person at the system clock's current time, oldest first.
      *
      * @return a list of notifications.
      */
     public List<String> getNotifications() {
-        return notifications;
+        return getNotifications(GymClock.system().millis());
+    }
+
+    /**
+     * Retrieves the notifications kept for this person at a given time, e.g. the time of a gym's clock, oldest first.
+     *
+     * @param now the current time in epoch milliseconds.
+     * @return a list of notifications.
+     */
+    public List<String> getNotifications(long now) {
+        NotificationInbox inbox = notifications;
+        return inbox == null ? List.of() : inbox.getMessages(now);
+    }
+
+    /**
+     * Retrieves the inbox holding this person's notifications, creating it if nothing was delivered yet.
+     *
+     * @return the notification inbox.
+     */
+    public NotificationInbox getInbox() {
+        NotificationInbox inbox = notifications;
+        if (inbox == null) {
+            synchronized (this) {
+                inbox = notifications;
+                if (inbox == null) {
+                    inbox = new NotificationInbox();
+                    notifications = inbox;
+                }
+            }
+        }
+        return inbox;
+    }
+
+    /**
+     * Checks if this person has an inbox, i.e. if a notification was ever delivered to them,
+     * e.g. to read the inboxes of many persons without creating empty ones.
+     *
+     * @return true if the inbox exists.
+     */
+    public boolean hasInbox() {
+        return notifications != null;
     }
 
     /**
@@ -93,11 +194,21 @@ public class Person {
      * Retrieves the balance amount of this person as an integer.
      *
      * @return the balance amount.
+     * @throws ArithmeticException if the balance does not fit in an int.
      */
     public int getBalanceInt() {
         return balance.getBalance();
     }
 
+    /**
+     * Retrieves the balance amount of this person, which credits can take past the range of an int.
+     *
+     * @return the balance amount.
+     */
+    public long getBalanceLong() {
+        return balance.getBalanceLong();
+    }
+
     /**
      * Retrieves the Balance object for this person.
      *
@@ -107,6 +218,37 @@ public class Person {
         return balance;
     }
 
+    /**
+     * Appends the details shared by every role of a person (ID, name, gender, birthday, age and balance)
+     * to a builder, without creating intermediate strings. The age is taken on today's date of the system clock.
+     *
+     * @param sb the builder to append to.
+     * @return the same builder.
+     * @deprecated the system clock cannot be set; use {@link #describeTo(StringBuilder, LocalDate)} with today's
+     * date of the gym's clock.
+     */
+    @Deprecated
+    public StringBuilder describeTo(StringBuilder sb) {
+        return describeTo(sb, GymClock.system().today());
+    }
+
+    /**
+     * Appends the details of the person to a builder, with the age on a given day, e.g. today in a gym's clock.
+     *
+     * @param sb    the builder to append to.
+     * @param today the day to calculate the age on.
+     * @return the same builder.
+     */
+    public StringBuilder describeTo(StringBuilder sb, LocalDate today) {
+        sb.append("ID: ").append(id)
+                .append(" | Name: ").append(name)
+                .append(" | Gender: ").append(gender)
+                .append(" | Birthday: ");
+        BIRTHDAY_FORMAT.formatTo(birthDate, sb);
+        return sb.append(" | Age: ").append(getAge(today))
+                .append(" | Balance: ").append(getBalanceLong());
+    }
+
     /**
      * Retrieves the ID of this person.
      *
@@ -117,32 +259,58 @@ public class Person {
     }
 
     /**
-     * Calculates and retrieves the age of this person.
+     * Calculates and retrieves the age of this person on today's date of the system clock.
      *
      * @return the age of the person in years.
+     * @deprecated the system clock cannot be set; use {@link #getAge(LocalDate)} with today's date of the gym's clock.
      */
+    @Deprecated
     public int getAge() {
-        LocalDate now = LocalDate.now();
-        return Period.between(birthDate, now).getYears();
+        return getAge(GymClock.system().today());
+    }
+
+    /**
+     * Calculates the age of the person on a given day.
+     * The result is cached until the next birthday, so repeated calls do not recalculate it.
+     *
+     * @param on the day to calculate the age on.
+     * @return the age in years.
+     */
+    public int getAge(LocalDate on) {
+        long day = on.toEpochDay();
+        AgeCache cache = ageCache;
+        if (cache != null && day >= cache.from && day < cache.until) {
+            return cache.age;
+        }
+        int age = Period.between(birthDate, on).getYears();
+        if (age >= 0) {
+            ageCache = new AgeCache(age, birthday(age).toEpochDay(), birthday(age + 1).toEpochDay());
+        }
+        return age;
     }
 
     /**
-     * Parses a birth date string into a LocalDate object.
+     * Finds the day the person turns a given age. Someone born on February 29 turns a year older
+     * on March 1 in common years, matching {@link Period}.
+     *
+     * @param age the age in years.
+     * @return the first day the person has that age.
+     */
+    private LocalDate birthday(int age) {
+        LocalDate day = birthDate.plusYears(age);
+        return day.getDayOfMonth() == birthDate.getDayOfMonth() ? day : day.plusDays(1);
+    }
+
+    /**
+     * Parses a birth date string into a LocalDate object. Safe to call from several threads, e.g. to parse an import in parallel.
      *
      * @param birthDate the birth date string in "yyyy-MM-dd" or "dd-MM-yyyy" format.
      * @return the parsed LocalDate object.
      * @throws IllegalArgumentException if the birth date format is invalid.
+     * @see DateCodec#parseBirthDate(String)
      */
-    private LocalDate parseBirthDate(String birthDate) {
-        if (birthDate.matches("\\d{4}-\\d{2}-\\d{2}")) {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-            return LocalDate.parse(birthDate, formatter);
-        } else if (birthDate.matches("\\d{2}-\\d{2}-\\d{4}")) {
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-            return LocalDate.parse(birthDate, formatter);
-        } else {
-            throw new IllegalArgumentException("Invalid birth date format: " + birthDate);
-        }
+    public static LocalDate parseBirthDate(String birthDate) {
+        return DateCodec.parseBirthDate(birthDate);
     }
 
     /**
@@ -160,11 +328,48 @@ public class Person {
         return ((Person) obj).getId() == id;
     }
 
+    /**
+     * Calculates the hash code for this person, consistent with {@link #equals(Object)}.
+     *
+     * @return the hash code of the person's ID
+     */
+    @Override
+    public int hashCode() {
+        return Integer.hashCode(id);
+    }
+
+    /**
+     * An age and the epoch days, from inclusive to until exclusive, on which the person has that age.
+     */
+    private static final class AgeCache {
+        private final int age;
+        private final long from;
+        private final long until;
+
+        AgeCache(int age, long from, long until) {
+            this.age = age;
+            this.from = from;
+            this.until = until;
+        }
+    }
+
     /**
      * Represents the balance of a person and provides operations to modify it.
+     * All operations are atomic, so a balance shared by several roles of the same person
+     * can be charged and credited from several threads without losing updates.
      */
-    public class Balance {
-        private int balance;
+    public static class Balance {
+        private static final VarHandle BALANCE;
+
+        static {
+            try {
+                BALANCE = MethodHandles.lookup().findVarHandle(Balance.class, "balance", long.class);
+            } catch (ReflectiveOperationException e) {
+                throw new ExceptionInInitializerError(e);
+            }
+        }
+
+        private volatile long balance;
 
         /**
          * Constructor to initialize the balance.
@@ -175,12 +380,31 @@ public class Person {
             this.balance = balance;
         }
 
+        /**
+         * Constructor to initialize the balance, e.g. with an amount read back from a log or a snapshot.
+         *
+         * @param balance the initial balance amount.
+         */
+        public Balance(long balance) {
+            this.balance = balance;
+        }
+
         /**
          * Retrieves the current balance amount.
          *
          * @return the balance amount.
+         * @throws ArithmeticException if the balance does not fit in an int.
          */
         public int getBalance() {
+            return Math.toIntExact(balance);
+        }
+
+        /**
+         * Retrieves the current balance amount without narrowing it.
+         *
+         * @return the balance amount.
+         */
+        public long getBalanceLong() {
             return balance;
         }
 
@@ -190,7 +414,7 @@ public class Person {
          * @param balance the amount to deduct from the balance.
          */
         public void reduceBalance(int balance) {
-            this.balance -= balance;
+            BALANCE.getAndAdd(this, (long) -balance);
         }
 
         /**
@@ -199,7 +423,25 @@ public class Person {
          * @param balance the amount to add to the balance.
          */
         public void addBalance(int balance) {
-            this.balance += balance;
+            BALANCE.getAndAdd(this, (long) balance);
+        }
+
+        /**
+         * Deducts a specified amount only if the balance covers it, as a single atomic step.
+         *
+         * @param amount the amount to deduct from the balance.
+         * @return true if the amount was deducted, false if the balance is too low.
+         */
+        public boolean tryDebit(int amount) {
+            long current = balance;
+            while (current >= amount) {
+                long witness = (long) BALANCE.compareAndExchange(this, current, current - amount);
+                if (witness == current) {
+                    return true;
+                }
+                current = witness;
+            }
+            return false;
         }
     }
 }
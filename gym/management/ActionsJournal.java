@@ -0,0 +1,168 @@
+package gym.management;
+
+import gym.management.events.GymEvent;
+import gym.management.events.GymEventListener;
+import gym.management.events.GymEventReader;
+import gym.util.GymClock;
+import gym.util.MappedJournal;
+
+import java.io.PrintStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * The history of actions performed in the gym, kept as compact binary records in a memory-mapped,
+ * segmented append-only journal instead of as strings on the heap.
+ * Actions are recorded as typed {@link GymEvent}s; their text is only built when the history is printed or exported.
+ * <p>
+ * The journal is written to a temporary directory unless the {@code gym.journal.dir} system property
+ * names one; {@code gym.journal.segmentSize} sets the size of each segment file in bytes. The default gym writes to
+ * that directory itself and every other gym of the {@link GymRegistry} to a subdirectory named by its ID.
+ */
+public class ActionsJournal {
+    private static final int DEFAULT_SEGMENT_SIZE = 8 * 1024 * 1024;
+
+    private final MappedJournal journal;
+    private final GymClock clock;
+
+    /**
+     * Constructs an actions journal on top of the given journal, timestamping actions with the system clock.
+     *
+     * @param journal the journal storing the records
+     */
+    public ActionsJournal(MappedJournal journal) {
+        this(journal, GymClock.system());
+    }
+
+    /**
+     * Constructs an actions journal on top of the given journal.
+     *
+     * @param journal the journal storing the records
+     * @param clock   the clock of the gym, used to timestamp the actions
+     */
+    public ActionsJournal(MappedJournal journal, GymClock clock) {
+        this.journal = journal;
+        this.clock = clock;
+    }
+
+    /**
+     * Opens the actions journal of the default gym, configured by the {@code gym.journal.*} system properties.
+     *
+     * @return the new actions journal
+     */
+    public static ActionsJournal open() {
+        return open(GymRegistry.DEFAULT_GYM_ID, GymClock.system());
+    }
+
+    /**
+     * Opens the actions journal of a gym, configured by the {@code gym.journal.*} system properties.
+     *
+     * @param gymId the ID of the gym
+     * @param clock the clock of the gym, used to timestamp the actions
+     * @return the new actions journal
+     */
+    public static ActionsJournal open(String gymId, GymClock clock) {
+        String dir = System.getProperty("gym.journal.dir");
+        if (dir == null) {
+            return temporary(clock);
+        }
+        Path path = Paths.get(dir);
+        if (!GymRegistry.DEFAULT_GYM_ID.equals(gymId)) {
+            path = path.resolve(gymId);
+        }
+        return new ActionsJournal(new MappedJournal(path, segmentSize()), clock);
+    }
+
+    /**
+     * Opens an actions journal in a temporary directory, whatever the {@code gym.journal.dir} system property says.
+     *
+     * @param clock the clock of the gym, used to timestamp the actions
+     * @return the new actions journal
+     */
+    public static ActionsJournal temporary(GymClock clock) {
+        return new ActionsJournal(MappedJournal.temporary(segmentSize()), clock);
+    }
+
+    private static int segmentSize() {
+        return Integer.getInteger("gym.journal.segmentSize", DEFAULT_SEGMENT_SIZE);
+    }
+
+    /**
+     * Records an action.
+     *
+     * @param event the event describing the action
+     * @return the position of the record in the journal
+     */
+    public long add(GymEvent event) {
+        return event.appendTo(journal, clock.millis());
+    }
+
+    /**
+     * Passes every action recorded from the given position onwards to a listener, e.g. an exporter.
+     * The events handed to the listener are reused between calls.
+     *
+     * @param position the journal position to start from, 0 for the whole history
+     * @param listener the listener receiving the events
+     * @return the position after the last action read, to continue from later
+     */
+    public long replay(long position, GymEventListener listener) {
+        MappedJournal.Cursor cursor = journal.cursor(position);
+        MappedJournal.Record record = new MappedJournal.Record();
+        GymEventReader reader = new GymEventReader();
+        while (cursor.next(record)) {
+            listener.onEvent(reader.read(record));
+        }
+        return cursor.getPosition();
+    }
+
+    /**
+     * Prints every action recorded from the given position onwards, one line per action.
+     * Calling this again with the returned position prints only the actions added since, which tails the history.
+     *
+     * @param position the journal position to start from, 0 for the whole history
+     * @param out      the stream to print to
+     * @return the position after the last printed action
+     */
+    public long print(long position, PrintStream out) {
+        StringBuilder sb = new StringBuilder();
+        return replay(position, event -> {
+            sb.setLength(0);
+            event.format(sb);
+            out.println(sb);
+        });
+    }
+
+    /**
+     * Starts a new segment file for the actions recorded from now on.
+     *
+     * @return the journal position of the new segment
+     */
+    public long rotate() {
+        return journal.rotate();
+    }
+
+    /**
+     * Deletes the segment files holding only actions recorded before the given position.
+     *
+     * @param position the oldest position that must stay in the history
+     */
+    public void dropBefore(long position) {
+        journal.dropBefore(position);
+    }
+
+    /**
+     * Closes the underlying journal and releases its segments. No more actions can be recorded afterwards.
+     */
+    public void close() {
+        journal.close();
+    }
+
+    /**
+     * Retrieves the underlying journal, e.g. to open a cursor for tailing it.
+     *
+     * @return the journal storing the records
+     */
+    public MappedJournal getJournal() {
+        return journal;
+    }
+}
@@ -0,0 +1,44 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.management.Sessions.Session;
+
+import java.util.Objects;
+
+/**
+ * A request to register a client to a session, one entry of a batch passed to
+ * {@link Secretary#registerClientsToLessons}.
+ */
+public final class BookingRequest {
+    private final Client client;
+    private final Session session;
+
+    /**
+     * Constructs a booking request.
+     *
+     * @param client  the client to register
+     * @param session the session to register the client in
+     */
+    public BookingRequest(Client client, Session session) {
+        this.client = Objects.requireNonNull(client, "client");
+        this.session = Objects.requireNonNull(session, "session");
+    }
+
+    /**
+     * Gets the client to register.
+     *
+     * @return the client
+     */
+    public Client getClient() {
+        return client;
+    }
+
+    /**
+     * Gets the session to register the client in.
+     *
+     * @return the session
+     */
+    public Session getSession() {
+        return session;
+    }
+}
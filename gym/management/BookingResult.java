@@ -0,0 +1,80 @@
+package gym.management;
+
+import gym.management.events.RegistrationFailed;
+
+/**
+ * The outcome of a booking as a set of flags in an int: {@link #BOOKED} (no flags) if the client was registered,
+ * otherwise one flag per failed check. A client who only failed {@link #NO_SPOTS} may also be {@link #WAITLISTED}.
+ */
+public final class BookingResult {
+    /** The client was registered to the session and charged. */
+    public static final int BOOKED = 0;
+
+    /** The session was full. */
+    public static final int NO_SPOTS = RegisterClientAction.failureBit(RegistrationFailed.Reason.NO_SPOTS);
+
+    /** The session has already taken place. */
+    public static final int NOT_FUTURE = RegisterClientAction.failureBit(RegistrationFailed.Reason.NOT_FUTURE);
+
+    /** The client does not meet the age requirements of the session's forum. */
+    public static final int AGE = RegisterClientAction.failureBit(RegistrationFailed.Reason.AGE);
+
+    /** The client's gender does not match the session's forum. */
+    public static final int GENDER = RegisterClientAction.failureBit(RegistrationFailed.Reason.GENDER);
+
+    /** The client could not afford the session. */
+    public static final int BALANCE = RegisterClientAction.failureBit(RegistrationFailed.Reason.BALANCE);
+
+    /** The client was already registered to the session. No other check is made. */
+    public static final int DUPLICATE = 1 << 8;
+
+    /** The client is not registered with the gym. No other check is made. */
+    public static final int NOT_REGISTERED = 1 << 9;
+
+    /** The client was put on the session's waitlist, or was already on it. */
+    public static final int WAITLISTED = 1 << 10;
+
+    private BookingResult() {
+    }
+
+    /**
+     * Checks if a booking succeeded.
+     *
+     * @param result the outcome of the booking
+     * @return true if the client was registered to the session
+     */
+    public static boolean isBooked(int result) {
+        return result == BOOKED;
+    }
+
+    /**
+     * Describes the outcome of a booking.
+     *
+     * @param result the outcome of the booking
+     * @return the names of the flags, e.g. "NO_SPOTS|WAITLISTED", or "BOOKED"
+     */
+    public static String toString(int result) {
+        if (result == BOOKED) {
+            return "BOOKED";
+        }
+        StringBuilder sb = new StringBuilder();
+        append(sb, result, NO_SPOTS, "NO_SPOTS");
+        append(sb, result, NOT_FUTURE, "NOT_FUTURE");
+        append(sb, result, AGE, "AGE");
+        append(sb, result, GENDER, "GENDER");
+        append(sb, result, BALANCE, "BALANCE");
+        append(sb, result, DUPLICATE, "DUPLICATE");
+        append(sb, result, NOT_REGISTERED, "NOT_REGISTERED");
+        append(sb, result, WAITLISTED, "WAITLISTED");
+        return sb.toString();
+    }
+
+    private static void append(StringBuilder sb, int result, int flag, String name) {
+        if ((result & flag) != 0) {
+            if (sb.length() > 0) {
+                sb.append('|');
+            }
+            sb.append(name);
+        }
+    }
+}
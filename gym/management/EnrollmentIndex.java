@@ -0,0 +1,139 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.management.Sessions.Session;
+import gym.util.IntLinkedMap;
+
+import java.util.Arrays;
+
+/**
+ * Links clients and the sessions they are enrolled in, in both directions: each client to the IDs of their
+ * sessions and each session to the IDs of its clients, both in booking order. A client leaving the gym only
+ * visits their own sessions, and reports can list the sessions of a client or the clients of a session
+ * without touching the others.
+ * <p>
+ * Each direction is spread over stripes by ID, each with its own lock, because bookings to different sessions
+ * add to the index in parallel.
+ */
+class EnrollmentIndex {
+    private static final int STRIPES = 64;
+    private static final int[] NONE = new int[0];
+
+    private final Stripe[] byClient = newStripes();
+    private final Stripe[] bySession = newStripes();
+
+    /**
+     * Records that a client was enrolled in a session. The session must have been added to the gym.
+     *
+     * @param client  the client
+     * @param session the session
+     */
+    void add(Client client, Session session) {
+        stripe(byClient, client.getId()).add(client.getId(), session.getId());
+        stripe(bySession, session.getId()).add(session.getId(), client.getId());
+    }
+
+    /**
+     * Records that a client left a session.
+     *
+     * @param client  the client
+     * @param session the session
+     */
+    void remove(Client client, Session session) {
+        stripe(byClient, client.getId()).remove(client.getId(), session.getId());
+        stripe(bySession, session.getId()).remove(session.getId(), client.getId());
+    }
+
+    /**
+     * Removes a client from the index.
+     *
+     * @param client the client
+     * @return the IDs of the sessions the client was enrolled in, in booking order
+     */
+    int[] removeAll(Client client) {
+        int[] sessionIds = stripe(byClient, client.getId()).removeAll(client.getId());
+        for (int sessionId : sessionIds) {
+            stripe(bySession, sessionId).remove(sessionId, client.getId());
+        }
+        return sessionIds;
+    }
+
+    /**
+     * Retrieves the sessions a client is enrolled in.
+     *
+     * @param client the client
+     * @return the IDs of the sessions, in booking order
+     */
+    int[] get(Client client) {
+        return stripe(byClient, client.getId()).get(client.getId());
+    }
+
+    /**
+     * Retrieves the clients enrolled in a session.
+     *
+     * @param session the session
+     * @return the IDs of the clients, in booking order
+     */
+    int[] get(Session session) {
+        return stripe(bySession, session.getId()).get(session.getId());
+    }
+
+    private static Stripe[] newStripes() {
+        Stripe[] stripes = new Stripe[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new Stripe();
+        }
+        return stripes;
+    }
+
+    private static Stripe stripe(Stripe[] stripes, int id) {
+        int h = id * 0x9E3779B9;
+        return stripes[(h ^ h >>> 16) & (STRIPES - 1)];
+    }
+
+    /**
+     * The IDs of one stripe, each mapped to an array holding the number of linked IDs followed by the IDs.
+     */
+    private static class Stripe {
+        private final IntLinkedMap<int[]> links = new IntLinkedMap<>();
+
+        synchronized void add(int id, int linked) {
+            int[] ids = links.get(id);
+            if (ids == null) {
+                ids = new int[4];
+                links.put(id, ids);
+            } else if (ids[0] == ids.length - 1) {
+                ids = Arrays.copyOf(ids, ids.length * 2);
+                links.put(id, ids);
+            }
+            ids[++ids[0]] = linked;
+        }
+
+        synchronized void remove(int id, int linked) {
+            int[] ids = links.get(id);
+            if (ids == null) {
+                return;
+            }
+            for (int i = 1; i <= ids[0]; i++) {
+                if (ids[i] == linked) {
+                    System.arraycopy(ids, i + 1, ids, i, ids[0] - i);
+                    ids[0]--;
+                    break;
+                }
+            }
+            if (ids[0] == 0) {
+                links.remove(id);
+            }
+        }
+
+        synchronized int[] removeAll(int id) {
+            int[] ids = links.remove(id);
+            return ids == null ? NONE : Arrays.copyOfRange(ids, 1, ids[0] + 1);
+        }
+
+        synchronized int[] get(int id) {
+            int[] ids = links.get(id);
+            return ids == null ? NONE : Arrays.copyOfRange(ids, 1, ids[0] + 1);
+        }
+    }
+}
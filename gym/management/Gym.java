@@ -3,21 +3,55 @@ import gym.customers.Client;
 import gym.customers.Instructor;
 import gym.customers.Person;
 import gym.management.Sessions.Session;
+import gym.management.events.SecretaryStarted;
+import gym.util.GymClock;
+import gym.util.IntLinkedMap;
+import gym.util.StripedLocks;
 
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
- * Represents a Gym, following the Singleton design pattern to ensure a single instance.
+ * Represents a Gym. One process can host many gyms, e.g. the branches of a region, through the {@link GymRegistry};
+ * {@link #getInstance()} returns its default gym.
  * The Gym manages clients, instructors, sessions, and a secretary. It also maintains
- * the gym's balance and a history of actions performed.
+ * the gym's balance and a history of actions performed. Each gym has its own state, locks and clock;
+ * what gyms share is listed on the {@link GymRegistry}.
+ * The Gym is safe to use from several threads, e.g. multiple front-desk terminals working on the same gym.
  */
 public class Gym {
 
     /**
-     * The single instance of the Gym.
+     * The number of lock stripes shared by the gym's sessions.
      */
-    private static Gym instance;
+    private static final int SESSION_LOCK_STRIPES = 64;
+
+    /**
+     * Numbers the gyms built outside the registry.
+     */
+    private static final AtomicInteger UNREGISTERED = new AtomicInteger();
+
+    /**
+     * The ID the gym is registered under in the {@link GymRegistry}.
+     */
+    protected final String id;
+
+    /**
+     * The clock the gym reads the current time from.
+     */
+    protected final GymClock clock;
 
     /**
      * The name of the gym.
@@ -27,12 +61,17 @@ public class Gym {
     /**
      * The secretary of the gym.
      */
-    protected static Secretary secretary;
+    protected volatile Secretary secretary;
 
     /**
-     * The list of clients registered in the gym.
+     * The clients registered in the gym, keyed by their ID and kept in registration order.
      */
-    protected List<Client> clients;
+    protected IntLinkedMap<Client> clients;
+
+    /**
+     * Guards {@link #clients}: bookings and lookups share the read lock, registration changes take the write lock.
+     */
+    protected final ReadWriteLock clientsLock = new ReentrantReadWriteLock();
 
     /**
      * The list of instructors employed in the gym.
@@ -44,38 +83,113 @@ public class Gym {
      */
     protected List<Session> sessions;
 
+    /**
+     * The sessions held at the gym, grouped by the day they take place on.
+     */
+    protected NavigableMap<LocalDate, List<Session>> sessionsByDate;
+
+    /**
+     * Locks guarding the participants of each session, so bookings to different sessions run in parallel.
+     */
+    protected final StripedLocks sessionLocks = new StripedLocks(SESSION_LOCK_STRIPES);
+
     /**
      * The current balance of the gym.
      */
-    protected static int balanceGym = 0;
+    protected final LongAdder balanceGym = new LongAdder();
+
+    /**
+     * The sessions each instructor has not been paid for yet.
+     */
+    protected final Payroll payroll = new Payroll();
 
     /**
-     * The history of actions performed in the gym.
+     * The sessions of each instructor in time order, used to reject double bookings. Guarded by {@link #sessions}.
      */
-    protected List<String> actionsHistory;
+    protected final Schedule schedule = new Schedule();
 
     /**
-     * Private constructor to prevent instantiation from outside the class.
+     * The sessions each client is enrolled in and the clients enrolled in each session.
      */
-    private Gym() {
+    protected final EnrollmentIndex enrollments = new EnrollmentIndex();
+
+    /**
+     * The clients waiting for a seat in full sessions.
+     */
+    protected final Waitlist waitlist = new Waitlist();
+
+    /**
+     * The log the gym's changes are made durable in, or null if they are only kept in memory.
+     */
+    protected volatile WriteAheadLog writeAheadLog;
+
+    /**
+     * The history of actions performed in the gym, stored off-heap as binary records.
+     */
+    protected ActionsJournal actionsHistory;
+
+    /**
+     * Delivers the notifications sent by the gym's secretaries in the background.
+     */
+    protected final NotificationDispatcher notifications;
+
+    /**
+     * Constructs an empty gym outside the registry. Only code in this package (e.g. the benchmarks) may build gyms
+     * besides those of the {@link GymRegistry}. The gym gets an ID of its own and keeps its history in a temporary
+     * journal, so it never writes to the journal files of a registered gym.
+     */
+    Gym() {
+        this("unregistered-" + UNREGISTERED.incrementAndGet(), Clock.systemDefaultZone(), true);
+    }
+
+    /**
+     * Constructs an empty gym for the registry.
+     *
+     * @param id    the ID of the gym
+     * @param clock the clock the gym reads the current time from
+     */
+    Gym(String id, Clock clock) {
+        this(id, clock, false);
+    }
+
+    private Gym(String id, Clock clock, boolean temporaryHistory) {
+        this.id = id;
+        this.clock = new GymClock(clock);
+        this.notifications = new NotificationDispatcher(this.clock);
         this.name = "Default Gym Name";
         this.secretary = null;
-        this.clients = new ArrayList<>();
-        this.instructors = new ArrayList<>();
-        this.sessions = new ArrayList<>();
-        this.actionsHistory = new ArrayList<>();
+        this.clients = new IntLinkedMap<>();
+        this.instructors = Collections.synchronizedList(new ArrayList<>());
+        this.sessions = Collections.synchronizedList(new ArrayList<>());
+        this.sessionsByDate = new ConcurrentSkipListMap<>();
+        this.actionsHistory = temporaryHistory ? ActionsJournal.temporary(this.clock) : ActionsJournal.open(id, this.clock);
     }
 
     /**
-     * Retrieves the single instance of the Gym.
+     * Retrieves the default gym of the process, for code that only works with one gym.
      *
-     * @return the Gym instance
+     * @return the default gym of the {@link GymRegistry}
      */
     public static Gym getInstance() {
-        if (instance == null) {
-            instance = new Gym();
-        }
-        return instance;
+        return GymRegistry.getDefault();
+    }
+
+    /**
+     * Retrieves the ID of the gym.
+     *
+     * @return the ID the gym is registered under
+     */
+    public String getId() {
+        return id;
+    }
+
+    /**
+     * Retrieves the clock the gym reads the current time from, e.g. to run the gym at a chosen point in time.
+     *
+     * @return the gym's clock
+     */
+    public GymClock getClock() {
+        return clock;
     }
 
     /**
@@ -93,7 +207,17 @@ public class Gym {
      * @param nName the new name of the gym
      */
     public void setName(String nName) {
-        name = nName;
+        WriteAheadLog wal = writeAheadLog;
+        long logged = 0;
+        synchronized (this) {
+            name = nName;
+            if (wal != null) {
+                logged = wal.logSetName(nName);
+            }
+        }
+        if (wal != null) {
+            wal.awaitDurable(logged);
+        }
     }
 
     /**
@@ -103,11 +227,49 @@ public class Gym {
      * @param i  the hourly salary of the new secretary
      */
     public void setSecretary(Person p1, int i) {
-        if (secretary != null) {
-            secretary.setActive(false);
+        WriteAheadLog wal = writeAheadLog;
+        long logged = 0;
+        synchronized (this) {
+            if (secretary != null) {
+                secretary.setActive(false);
+            }
+            secretary = new Secretary(p1, i, this);
+            if (wal != null) {
+                logged = wal.logSetSecretary(secretary);
+            }
+            actionsHistory.add(new SecretaryStarted(secretary.getId(), secretary.getName()));
+        }
+        if (wal != null) {
+            wal.awaitDurable(logged);
+        }
+    }
+
+    /**
+     * Starts logging the gym's changes to a write-ahead log. Use {@link WriteAheadLog#recover} to attach
+     * a log after restoring the gym from it.
+     *
+     * @param wal the log to append to, or null to stop logging
+     */
+    public void setWriteAheadLog(WriteAheadLog wal) {
+        if (wal != null) {
+            wal.setClock(clock);
         }
-        secretary = new Secretary(p1, i, this);
-        actionsHistory.add("A new secretary has started working at the gym: " + secretary.getName());
+        writeAheadLog = wal;
+    }
+
+    /**
+     * Releases the gym's resources once it is no longer used: delivers the notifications already sent, then closes
+     * the write-ahead log, if any, and the actions history. Called by {@link GymRegistry#remove}; the gym must not
+     * be used afterwards.
+     */
+    public void close() {
+        notifications.close();
+        WriteAheadLog wal = writeAheadLog;
+        writeAheadLog = null;
+        if (wal != null) {
+            wal.close();
+        }
+        actionsHistory.close();
     }
 
     /**
@@ -116,7 +278,7 @@ public class Gym {
      * @param balance the amount to subtract from the balance
      */
     protected void reduceBalanceGym(int balance) {
-        balanceGym -= balance;
+        balanceGym.add(-balance);
     }
 
     /**
@@ -125,7 +287,16 @@ public class Gym {
      * @param balance the amount to add to the balance
      */
     protected void addToeBalanceGym(int balance) {
-        balanceGym += balance;
+        balanceGym.add(balance);
+    }
+
+    /**
+     * Retrieves the current balance of the gym. Payroll runs can take it past the range of an int.
+     *
+     * @return the gym's balance
+     */
+    protected long getBalanceGym() {
+        return balanceGym.sum();
     }
 
     /**
@@ -138,48 +309,91 @@ public class Gym {
     }
 
     /**
-     * Provides a string representation of the gym, including its name, balance,
-     * clients, employees, and sessions.
+     * Finds the instructor with an ID, among all instructors hired so far.
      *
-     * @return a detailed string representation of the gym
+     * @param id the instructor's ID
+     * @return the instructor, or null if none has the ID
      */
-    @Override
-    public String toString() {
-        StringBuilder sb = new StringBuilder();
-
-        sb.append("Gym Name: ").append(name).append("\n");
-
-        if (secretary != null) {
-            sb.append("Gym Secretary: ").append(secretary).append("\n");
+    Instructor findInstructor(int id) {
+        synchronized (instructors) {
+            for (int i = instructors.size() - 1; i >= 0; i--) {
+                if (instructors.get(i).getId() == id) {
+                    return instructors.get(i);
+                }
+            }
         }
+        return null;
+    }
 
-        sb.append("Gym Balance: ").append(secretary.getBalanceGym()).append("\n\n");
-
-        // Clients Data
-        sb.append("Clients Data:\n");
-        for (Client client : clients) {
-            sb.append(client).append("\n");
+    /**
+     * Finds a role of the person with an ID: the secretary, a registered client or an instructor. All roles of a
+     * person share the person's balance, so a new role for a known ID takes the balance from the one found here.
+     *
+     * @param id the person's ID
+     * @return a role of the person, or null if the gym does not know the ID
+     */
+    Person findPerson(int id) {
+        Secretary current = secretary;
+        if (current != null && current.getId() == id) {
+            return current;
         }
-
-        sb.append("\n");
-
-        // Employees Data
-        sb.append("Employees Data:\n");
-        for (Instructor instructor : instructors) {
-            sb.append(instructor).append("\n");
+        Client client = clients.get(id);
+        if (client != null) {
+            return client;
         }
-        if (secretary != null) {
-            sb.append(secretary).append("\n");
+        return findInstructor(id);
+    }
+
+    /**
+     * Retrieves the sessions a client is enrolled in.
+     *
+     * @param client the client
+     * @return the client's sessions, in booking order
+     */
+    public List<Session> getSessions(Client client) {
+        int[] ids = enrollments.get(client);
+        List<Session> booked = new ArrayList<>(ids.length);
+        for (int id : ids) {
+            booked.add(sessions.get(id));
         }
+        return booked;
+    }
 
-        sb.append("\n");
+    /**
+     * Retrieves the IDs of the clients enrolled in a session, e.g. for reports that only need the IDs.
+     *
+     * @param session the session
+     * @return the IDs of the session's clients, in booking order
+     */
+    public int[] getClientIds(Session session) {
+        return enrollments.get(session);
+    }
 
-        // Sessions Data
-        sb.append("Sessions Data:\n");
-        for (Session session : sessions) {
-            sb.append(session).append("\n");
-        }
+    /**
+     * Retrieves the clients waiting for a seat in a session. They are booked automatically, longest waiting first,
+     * when a participant leaves the gym.
+     *
+     * @param session the session
+     * @return a copy of the session's waitlist
+     */
+    public List<Client> getWaitlist(Session session) {
+        return waitlist.get(session);
+    }
 
-        return sb.toString();
+    /**
+     * Provides a string representation of the gym, including its name, balance,
+     * clients, employees, and sessions. Use {@link GymReportWriter} to stream the report of a large gym instead.
+     *
+     * @return a detailed string representation of the gym
+     */
+    @Override
+    public String toString() {
+        StringWriter sw = new StringWriter();
+        try {
+            new GymReportWriter(this, sw).writeAll();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return sw.toString();
     }
 }
@@ -0,0 +1,369 @@
+package gym.management;
+
+import gym.Exception.InstructorNotQualifiedException;
+import gym.Exception.SessionConflictException;
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.Instructor;
+import gym.customers.Person;
+import gym.management.Sessions.ForumType;
+import gym.management.Sessions.SessionType;
+import gym.management.events.ClientRegistered;
+import gym.util.DateCodec;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * This class provides static methods for importing clients, instructors and sessions in bulk from CSV text,
+ * e.g. when a new branch is onboarded.
+ * <p>
+ * Client rows are read in chunks; the chunks are parsed and checked in parallel, and then committed to the gym
+ * in input order, one client registry lock per chunk. Rows that cannot be imported are reported with their
+ * line number instead of stopping the import. Instructors and sessions are fewer and are imported one row at a
+ * time through the secretary.
+ * <p>
+ * Fields are separated by commas and may be quoted with double quotes. A first line starting with a
+ * {@code name} or {@code type} column is treated as a header and skipped, as are empty lines.
+ */
+public abstract class GymImporter {
+    private static final int CHUNK_SIZE = 4096;
+
+    /**
+     * Imports clients from rows of {@code name,balance,gender,birthDate[,id]}.
+     * Birth dates use the "dd-MM-yyyy" or "yyyy-MM-dd" format. Rows without an ID get the next free ID.
+     * A row whose ID belongs to the secretary or an instructor registers that person, who keeps their balance.
+     * <p>
+     * Free IDs are given out as the chunks are committed, and only the explicit IDs of the chunk being committed
+     * are reserved first. An explicit ID that an earlier row without an ID already took is therefore rejected as
+     * registered, so the input should give either all or none of its rows an ID.
+     *
+     * @param in        the CSV text
+     * @param secretary the secretary managing the gym operations
+     * @return the number of imported clients and the rejected rows
+     * @throws IOException if the text cannot be read
+     */
+    public static ImportResult importClients(Reader in, Secretary secretary) throws IOException {
+        BufferedReader reader = new BufferedReader(in, 1 << 16);
+        ImportResult result = new ImportResult();
+        LocalDate adultCutoff = secretary.gym.clock.today().minusYears(18);
+        int maxInFlight = 2 * ForkJoinPool.commonPool().getParallelism() + 1;
+        Deque<CompletableFuture<ClientChunk>> inFlight = new ArrayDeque<>();
+        int lineNumber = 0;
+        while (true) {
+            String[] lines = new String[CHUNK_SIZE];
+            int[] lineNumbers = new int[CHUNK_SIZE];
+            int count = 0;
+            String line;
+            while (count < CHUNK_SIZE && (line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank() || (lineNumber == 1 && isHeader(line, "name"))) {
+                    continue;
+                }
+                lines[count] = line;
+                lineNumbers[count++] = lineNumber;
+            }
+            if (count == 0) {
+                break;
+            }
+            int size = count;
+            inFlight.add(CompletableFuture.supplyAsync(() -> new ClientChunk(lines, lineNumbers, size, adultCutoff)));
+            if (inFlight.size() >= maxInFlight) {
+                commit(join(inFlight.poll()), secretary, result);
+            }
+        }
+        while (!inFlight.isEmpty()) {
+            commit(join(inFlight.poll()), secretary, result);
+        }
+        return result;
+    }
+
+    /**
+     * Imports instructors from rows of {@code name,balance,gender,birthDate,salary,sessionTypes[,id]},
+     * where the session types are separated by semicolons. Rows whose ID belongs to an instructor
+     * who already works at the gym are rejected. A row whose ID belongs to the secretary or a client hires
+     * that person, who keeps their balance.
+     *
+     * @param in        the CSV text
+     * @param secretary the secretary managing the gym operations
+     * @return the number of hired instructors and the rejected rows
+     * @throws IOException if the text cannot be read
+     */
+    public static ImportResult importInstructors(Reader in, Secretary secretary) throws IOException {
+        BufferedReader reader = new BufferedReader(in);
+        ImportResult result = new ImportResult();
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (lineNumber == 1 && isHeader(line, "name"))) {
+                continue;
+            }
+            try {
+                List<String> f = split(line, 6, 7);
+                int salary = parseInt(f.get(4), "salary");
+                ArrayList<SessionType> expertise = new ArrayList<>();
+                for (String type : f.get(5).split(";")) {
+                    if (!type.isBlank()) {
+                        expertise.add(parseEnum(SessionType.class, type.trim(), "session type"));
+                    }
+                }
+                if (f.size() == 7 && !f.get(6).isEmpty()) {
+                    int id = parseInt(f.get(6), "ID");
+                    if (secretary.gym.findInstructor(id) != null) {
+                        throw new IllegalArgumentException("Error: Instructor " + id + " already works at the gym");
+                    }
+                }
+                Person p = parsePerson(f, secretary.gym);
+                secretary.hireInstructor(p, salary, expertise);
+                result.addImported();
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                result.addError(lineNumber, e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Imports sessions from rows of {@code type,dateTime,forum,instructorId}, with the date and time in the
+     * "dd-MM-yyyy HH:mm" format. The instructor must already work at the gym.
+     *
+     * @param in        the CSV text
+     * @param secretary the secretary managing the gym operations
+     * @return the number of added sessions and the rejected rows
+     * @throws IOException if the text cannot be read
+     */
+    public static ImportResult importSessions(Reader in, Secretary secretary) throws IOException {
+        BufferedReader reader = new BufferedReader(in);
+        ImportResult result = new ImportResult();
+        int lineNumber = 0;
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || (lineNumber == 1 && isHeader(line, "type"))) {
+                continue;
+            }
+            try {
+                List<String> f = split(line, 4, 4);
+                SessionType type = parseEnum(SessionType.class, f.get(0), "session type");
+                String dateTime = f.get(1);
+                try {
+                    DateCodec.parseDateTime(dateTime);
+                } catch (DateTimeParseException e) {
+                    throw new IllegalArgumentException("Invalid session date: " + dateTime);
+                }
+                ForumType forum = parseEnum(ForumType.class, f.get(2), "forum");
+                int instructorId = parseInt(f.get(3), "instructor ID");
+                Instructor instructor = secretary.gym.findInstructor(instructorId);
+                if (instructor == null) {
+                    throw new IllegalArgumentException("Unknown instructor: " + instructorId);
+                }
+                secretary.addSession(type, dateTime, forum, instructor);
+                result.addImported();
+            } catch (IllegalArgumentException | InstructorNotQualifiedException | SessionConflictException e) {
+                result.addError(lineNumber, e.getMessage());
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Registers the valid clients of a parsed chunk in the gym and reports the rejected rows.
+     */
+    private static void commit(ClientChunk chunk, Secretary secretary, ImportResult result) {
+        Gym gym = secretary.gym;
+        WriteAheadLog wal = gym.writeAheadLog;
+        long logged = 0;
+        if (chunk.maxId > 0) {
+            Person.reserveIdsUpTo(chunk.maxId);
+        }
+        Lock lock = gym.clientsLock.writeLock();
+        lock.lock();
+        try {
+            for (int i = 0; i < chunk.size; i++) {
+                if (chunk.errors[i] != null) {
+                    result.addError(chunk.lineNumbers[i], chunk.errors[i]);
+                    continue;
+                }
+                int id = chunk.ids[i];
+                if (id != 0 && gym.clients.containsKey(id)) {
+                    result.addError(chunk.lineNumbers[i], "Error: The client is already registered");
+                    continue;
+                }
+                Person p;
+                if (id == 0) {
+                    p = new Person(chunk.names[i], chunk.balances[i], chunk.genders[i], chunk.birthDates[i]);
+                } else {
+                    Person known = gym.findPerson(id);
+                    Person.Balance balance = known != null ? known.getBalance() : new Person.Balance(chunk.balances[i]);
+                    p = new Person(chunk.names[i], balance, chunk.genders[i], chunk.birthDates[i], id);
+                }
+                Client c = new Client(p);
+                gym.clients.put(c.getId(), c);
+                if (wal != null) {
+                    logged = wal.logRegisterClient(c);
+                }
+                // recorded under the same lock as the log record, so a snapshot includes both or neither
+                gym.actionsHistory.add(new ClientRegistered(c.getId(), c.getName()));
+                result.addImported();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (wal != null) {
+            wal.awaitDurable(logged);
+        }
+    }
+
+    private static ClientChunk join(CompletableFuture<ClientChunk> future) throws IOException {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) e.getCause()).getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Builds the person described by the first fields of a row, and by the optional ID after the role's own fields.
+     * A person the gym already knows by the ID keeps their balance.
+     */
+    private static Person parsePerson(List<String> f, Gym gym) {
+        String name = f.get(0);
+        int balance = parseInt(f.get(1), "balance");
+        Gender gender = parseEnum(Gender.class, f.get(2), "gender");
+        LocalDate birthDate = Person.parseBirthDate(f.get(3));
+        if (f.size() == 7 && !f.get(6).isEmpty()) {
+            int id = parseInt(f.get(6), "ID");
+            Person.reserveIdsUpTo(id);
+            Person known = gym.findPerson(id);
+            return new Person(name, known != null ? known.getBalance() : new Person.Balance(balance), gender, birthDate, id);
+        }
+        return new Person(name, balance, gender, birthDate);
+    }
+
+    private static boolean isHeader(String line, String firstColumn) {
+        return line.trim().regionMatches(true, 0, firstColumn, 0, firstColumn.length())
+                && split(line, 1, Integer.MAX_VALUE).get(0).equalsIgnoreCase(firstColumn);
+    }
+
+    private static int parseInt(String s, String field) {
+        try {
+            return Integer.parseInt(s);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid " + field + ": " + s);
+        }
+    }
+
+    private static <E extends Enum<E>> E parseEnum(Class<E> type, String s, String field) {
+        for (E e : type.getEnumConstants()) {
+            if (e.name().equalsIgnoreCase(s)) {
+                return e;
+            }
+        }
+        throw new IllegalArgumentException("Invalid " + field + ": " + s);
+    }
+
+    /**
+     * Splits a CSV row into trimmed fields. Quoted fields may contain commas, and two double quotes stand for one.
+     *
+     * @param line the row
+     * @param min  the smallest number of fields allowed
+     * @param max  the largest number of fields allowed
+     * @return the fields
+     * @throws IllegalArgumentException if the row has too few or too many fields
+     */
+    static List<String> split(String line, int min, int max) {
+        List<String> fields = new ArrayList<>(8);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char ch = line.charAt(i);
+            if (quoted) {
+                if (ch == '"') {
+                    if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                        field.append('"');
+                        i++;
+                    } else {
+                        quoted = false;
+                    }
+                } else {
+                    field.append(ch);
+                }
+            } else if (ch == '"') {
+                quoted = true;
+            } else if (ch == ',') {
+                fields.add(field.toString().trim());
+                field.setLength(0);
+            } else {
+                field.append(ch);
+            }
+        }
+        fields.add(field.toString().trim());
+        if (fields.size() < min || fields.size() > max) {
+            throw new IllegalArgumentException(min == max
+                    ? "Expected " + min + " fields but found " + fields.size()
+                    : "Expected " + min + " to " + max + " fields but found " + fields.size());
+        }
+        return fields;
+    }
+
+    /**
+     * A chunk of client rows, parsed and checked on a worker thread. Row {@code i} is valid if {@code errors[i]} is null.
+     */
+    private static final class ClientChunk {
+        final int size;
+        final int[] lineNumbers;
+        final String[] names;
+        final int[] balances;
+        final Gender[] genders;
+        final LocalDate[] birthDates;
+        final int[] ids;
+        final String[] errors;
+        int maxId;
+
+        ClientChunk(String[] lines, int[] lineNumbers, int size, LocalDate adultCutoff) {
+            this.size = size;
+            this.lineNumbers = lineNumbers;
+            this.names = new String[size];
+            this.balances = new int[size];
+            this.genders = new Gender[size];
+            this.birthDates = new LocalDate[size];
+            this.ids = new int[size];
+            this.errors = new String[size];
+            for (int i = 0; i < size; i++) {
+                try {
+                    List<String> f = split(lines[i], 4, 5);
+                    names[i] = f.get(0);
+                    balances[i] = parseInt(f.get(1), "balance");
+                    genders[i] = parseEnum(Gender.class, f.get(2), "gender");
+                    birthDates[i] = Person.parseBirthDate(f.get(3));
+                    if (f.size() == 5 && !f.get(4).isEmpty()) {
+                        ids[i] = parseInt(f.get(4), "ID");
+                        maxId = Math.max(maxId, ids[i]);
+                    }
+                    // the same rule as Person.getAge(today) >= 18, without building a Period per row
+                    if (birthDates[i].isAfter(adultCutoff)) {
+                        errors[i] = "Error: Client must be at least 18 years old to register";
+                    }
+                } catch (IllegalArgumentException | DateTimeParseException e) {
+                    errors[i] = e.getMessage();
+                }
+            }
+        }
+    }
+}
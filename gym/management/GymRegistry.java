@@ -0,0 +1,121 @@
+package gym.management;
+
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Pattern;
+
+/**
+ * Hosts the gyms served by one process, e.g. all branches of a region, keyed by gym ID.
+ * <p>
+ * Each gym has its own clients, sessions, secretary, balance, locks, clock, write-ahead log, history and
+ * notification lanes, so work on one gym never waits for another. Looking up a gym does not lock: the registry is
+ * a concurrent map, and a gym is created on first use and released with {@link #remove}.
+ * <p>
+ * Some state belongs to the process and is shared by all gyms: persons, whose IDs are unique across the gyms, and
+ * their notification inboxes; the table of notification texts, which only keeps texts still held by some inbox;
+ * the system clock used for ages and inbox expiry; the threads delivering notifications; and the session type
+ * settings, so a price set with {@code SessionTypeRegistry.setPrice} applies to every gym.
+ */
+public final class GymRegistry {
+    /**
+     * The ID of the gym returned by {@link Gym#getInstance()}.
+     */
+    public static final String DEFAULT_GYM_ID = "default";
+
+    /** Gym IDs are used as directory names, e.g. for the actions journal. */
+    private static final Pattern ID_PATTERN = Pattern.compile("[A-Za-z0-9_-]+");
+
+    private static final ConcurrentMap<String, Gym> GYMS = new ConcurrentHashMap<>();
+
+    private GymRegistry() {
+    }
+
+    /**
+     * Retrieves the default gym, for code that only works with one gym.
+     *
+     * @return the default gym
+     */
+    public static Gym getDefault() {
+        return getGym(DEFAULT_GYM_ID);
+    }
+
+    /**
+     * Retrieves a gym, creating an empty one the first time its ID is used.
+     *
+     * @param gymId the ID of the gym, made of letters, digits, '_' and '-'
+     * @return the gym registered under the ID
+     * @throws IllegalArgumentException if the ID is empty or contains other characters
+     */
+    public static Gym getGym(String gymId) {
+        return getGym(gymId, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Retrieves a gym, creating an empty one that reads the time from the given clock the first time its ID is used.
+     *
+     * @param gymId the ID of the gym, made of letters, digits, '_' and '-'
+     * @param clock the clock a new gym reads the current time from; an existing gym keeps its own
+     * @return the gym registered under the ID
+     * @throws IllegalArgumentException if the ID is empty or contains other characters
+     */
+    public static Gym getGym(String gymId, Clock clock) {
+        if (gymId == null) {
+            throw new IllegalArgumentException("Invalid gym ID: null");
+        }
+        Gym gym = GYMS.get(gymId);
+        if (gym != null) {
+            return gym;
+        }
+        if (!ID_PATTERN.matcher(gymId).matches()) {
+            throw new IllegalArgumentException("Invalid gym ID: " + gymId);
+        }
+        return GYMS.computeIfAbsent(gymId, id -> new Gym(id, clock));
+    }
+
+    /**
+     * Removes a gym from the registry and closes it, e.g. when a branch is shut down. Its log and history files
+     * are kept, so using the ID again opens a new gym on top of them.
+     *
+     * @param gymId the ID of the gym
+     * @return true if a gym was registered under the ID
+     */
+    public static boolean remove(String gymId) {
+        Gym gym = gymId == null ? null : GYMS.remove(gymId);
+        if (gym == null) {
+            return false;
+        }
+        gym.close();
+        return true;
+    }
+
+    /**
+     * Removes and closes every gym, e.g. when the process shuts down.
+     */
+    public static void closeAll() {
+        for (String gymId : new ArrayList<>(GYMS.keySet())) {
+            remove(gymId);
+        }
+    }
+
+    /**
+     * Checks if a gym has been created.
+     *
+     * @param gymId the ID of the gym
+     * @return true if a gym is registered under the ID
+     */
+    public static boolean contains(String gymId) {
+        return gymId != null && GYMS.containsKey(gymId);
+    }
+
+    /**
+     * Retrieves the gyms created so far.
+     *
+     * @return a copy of the hosted gyms, in no particular order
+     */
+    public static Collection<Gym> getGyms() {
+        return new ArrayList<>(GYMS.values());
+    }
+}
@@ -0,0 +1,182 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.customers.Instructor;
+import gym.management.Sessions.Session;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Writes the gym report (the text of {@link Gym#toString()}) straight to a {@link Writer}, one line at a time,
+ * so a large gym can be reported without building the whole report in memory.
+ * <p>
+ * Each section can also be written on its own. Lines are assembled in a reused builder and copied to the
+ * writer through a reused buffer; sections are flushed to the writer as they complete.
+ * <p>
+ * Ages are taken on today's date in the gym's clock. A section only locks the gym while it copies the references to its rows; the rows are described and written
+ * after the lock is released, so a slow writer does not hold up registrations, bookings or new sessions.
+ */
+public class GymReportWriter {
+    private static final int BUFFER_SIZE = 8192;
+
+    private final Gym gym;
+    private final Writer out;
+    private final StringBuilder line = new StringBuilder(256);
+    private char[] buffer = new char[BUFFER_SIZE];
+    private int buffered;
+
+    /**
+     * Constructs a report writer.
+     *
+     * @param gym the gym to report on
+     * @param out the writer receiving the report
+     */
+    public GymReportWriter(Gym gym, Writer out) {
+        this.gym = gym;
+        this.out = out;
+    }
+
+    /**
+     * Constructs a report writer encoding the report as UTF-8.
+     *
+     * @param gym the gym to report on
+     * @param out the stream receiving the report
+     */
+    public GymReportWriter(Gym gym, OutputStream out) {
+        this(gym, new OutputStreamWriter(out, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writes the whole report.
+     *
+     * @throws IOException if the writer fails
+     */
+    public void writeAll() throws IOException {
+        writeHeader();
+        writeClients();
+        writeEmployees();
+        writeSessions();
+    }
+
+    /**
+     * Writes the gym's name, secretary and balance, followed by a blank line.
+     *
+     * @throws IOException if the writer fails
+     */
+    public void writeHeader() throws IOException {
+        line.append("Gym Name: ").append(gym.name);
+        endLine();
+        Secretary secretary = gym.getSecretary();
+        if (secretary != null) {
+            secretary.describeTo(line.append("Gym Secretary: "), gym.clock.today());
+            endLine();
+        }
+        line.append("Gym Balance: ").append(gym.getBalanceGym());
+        endLine();
+        endLine();
+        flush();
+    }
+
+    /**
+     * Writes the details of every client, followed by a blank line.
+     *
+     * @throws IOException if the writer fails
+     */
+    public void writeClients() throws IOException {
+        line.append("Clients Data:");
+        endLine();
+        Client[] clients;
+        Lock lock = gym.clientsLock.readLock();
+        lock.lock();
+        try {
+            clients = gym.clients.values().toArray(new Client[0]);
+        } finally {
+            lock.unlock();
+        }
+        LocalDate today = gym.clock.today();
+        for (Client client : clients) {
+            client.describeTo(line, today);
+            endLine();
+        }
+        endLine();
+        flush();
+    }
+
+    /**
+     * Writes the details of every instructor and of the secretary, followed by a blank line.
+     *
+     * @throws IOException if the writer fails
+     */
+    public void writeEmployees() throws IOException {
+        line.append("Employees Data:");
+        endLine();
+        Instructor[] instructors;
+        synchronized (gym.instructors) {
+            instructors = gym.instructors.toArray(new Instructor[0]);
+        }
+        LocalDate today = gym.clock.today();
+        for (Instructor instructor : instructors) {
+            instructor.describeTo(line, today);
+            endLine();
+        }
+        Secretary secretary = gym.getSecretary();
+        if (secretary != null) {
+            secretary.describeTo(line, today);
+            endLine();
+        }
+        endLine();
+        flush();
+    }
+
+    /**
+     * Writes the details of every session.
+     *
+     * @throws IOException if the writer fails
+     */
+    public void writeSessions() throws IOException {
+        line.append("Sessions Data:");
+        endLine();
+        Session[] sessions;
+        synchronized (gym.sessions) {
+            sessions = gym.sessions.toArray(new Session[0]);
+        }
+        for (Session session : sessions) {
+            session.describeTo(line);
+            endLine();
+        }
+        flush();
+    }
+
+    /**
+     * Ends the line being assembled and moves it to the buffer.
+     */
+    private void endLine() throws IOException {
+        line.append('\n');
+        int length = line.length();
+        if (buffered + length > buffer.length) {
+            drain();
+            if (length > buffer.length) {
+                buffer = new char[length];
+            }
+        }
+        line.getChars(0, length, buffer, buffered);
+        buffered += length;
+        line.setLength(0);
+    }
+
+    private void drain() throws IOException {
+        out.write(buffer, 0, buffered);
+        buffered = 0;
+    }
+
+    private void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+}
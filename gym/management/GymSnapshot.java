@@ -0,0 +1,582 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.Instructor;
+import gym.customers.MessageTable;
+import gym.customers.Person;
+import gym.management.Sessions.ForumType;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionFactory;
+import gym.management.Sessions.SessionType;
+import gym.util.IntLinkedMap;
+import gym.util.MappedJournal;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Saves the complete state of a gym to a compact binary file and loads it back, so a gym can restart
+ * without replaying every action that built it.
+ * <p>
+ * The file starts with a magic number, a schema version and the position of the {@link WriteAheadLog}
+ * the snapshot includes, followed by these sections:
+ * the gym's name and balance, the notification texts, one entry per person (balances are shared by all
+ * roles of a person, so they are stored once per person ID), the secretary, the clients with their inboxes,
+ * the instructors with their unpaid sessions, the sessions with their participants and waitlists and finally
+ * the position the actions history had reached. A history kept in {@code gym.journal.dir} is reopened on its own,
+ * so only a temporary history, which would not survive a restart, is copied into the snapshot.
+ * Roles, participants and sessions refer to each other by int IDs or indexes instead of being nested.
+ * Files are loaded through a memory map and read sequentially.
+ */
+public final class GymSnapshot {
+    /** The bytes "GYMS" at the start of every snapshot file. */
+    private static final int MAGIC = 0x47594D53;
+
+    /**
+     * The version of the format written by this class.
+     * Version 2 added the write-ahead log position, version 3 the session waitlists, version 4 the position of
+     * the actions history, whose records are only copied when the history is temporary. Version 5 widened person
+     * balances to a long.
+     */
+    public static final int SCHEMA_VERSION = 5;
+
+    private GymSnapshot() {
+    }
+
+    /**
+     * Saves a gym to a file, replacing the file once the snapshot is complete and on disk.
+     * Notifications sent so far are delivered first, while new ones wait, so the inboxes match the log position.
+     * Registrations, bookings and new sessions only wait while the state is copied to memory; the file is written
+     * after they resume.
+     *
+     * @param gym  the gym to save
+     * @param file the file to write
+     * @return the position of the gym's write-ahead log the snapshot includes, 0 if the gym has none
+     * @throws IOException if the file cannot be written
+     */
+    public static long save(Gym gym, Path file) throws IOException {
+        MappedJournal history = gym.actionsHistory.getJournal();
+        ByteArrayOutputStream state = new ByteArrayOutputStream(1 << 16);
+        long position;
+        long historyPosition;
+        // every change is logged and recorded in the history while holding one of these locks, so the log and history
+        // positions match the snapshot
+        synchronized (gym) {
+            // notifications are sent while holding the gym's monitor, so every one logged so far is delivered here
+            gym.notifications.flush();
+            Lock lock = gym.clientsLock.writeLock();
+            lock.lock();
+            try {
+                synchronized (gym.sessions) {
+                    synchronized (gym.instructors) {
+                        WriteAheadLog wal = gym.writeAheadLog;
+                        position = wal == null ? 0 : wal.getPosition();
+                        historyPosition = history.getWritePosition();
+                        new Writer(gym, new DataOutputStream(state)).write();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16));
+            out.writeInt(MAGIC);
+            out.writeInt(SCHEMA_VERSION);
+            out.writeLong(position);
+            state.writeTo(out);
+            writeHistory(history, historyPosition, out);
+            out.flush();
+            // the log before the position may be deleted once the snapshot is in place
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return position;
+    }
+
+    /**
+     * Writes the position the actions history had reached, followed by its records up to there if the history
+     * is temporary. Actions recorded after the position are left out.
+     */
+    private static void writeHistory(MappedJournal history, long end, DataOutputStream out) throws IOException {
+        out.writeLong(end);
+        out.writeBoolean(history.isTemporary());
+        if (history.isTemporary()) {
+            MappedJournal.Cursor cursor = history.cursor();
+            MappedJournal.Record record = new MappedJournal.Record();
+            StringBuilder text = new StringBuilder();
+            while (cursor.next(record) && cursor.getPosition() <= end) {
+                out.writeBoolean(true);
+                out.writeByte(record.getCode());
+                out.writeLong(record.getTimestamp());
+                out.writeInt(record.getId1());
+                out.writeInt(record.getId2());
+                out.writeLong(record.getValue1());
+                out.writeLong(record.getValue2());
+                text.setLength(0);
+                record.appendText(text);
+                out.writeInt(text.length());
+                out.writeChars(text.toString());
+            }
+            out.writeBoolean(false);
+        }
+    }
+
+    /**
+     * Loads a snapshot into a gym that has no secretary, clients, instructors or sessions yet.
+     * The saved actions history is only restored if the gym's history is empty. A history kept in
+     * {@code gym.journal.dir} is reopened on its own, and cut back to where it was when the snapshot was taken.
+     *
+     * @param file the snapshot file
+     * @param gym  the empty gym to load into
+     * @return the position of the write-ahead log to replay from
+     * @throws IOException if the file cannot be read or is not a snapshot of a supported version
+     */
+    public static long load(Path file, Gym gym) throws IOException {
+        if (gym.getSecretary() != null || !gym.clients.isEmpty() || !gym.instructors.isEmpty() || !gym.sessions.isEmpty()) {
+            throw new IllegalStateException("Snapshots can only be loaded into an empty gym");
+        }
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (in.remaining() < 8 || in.getInt() != MAGIC) {
+            throw new IOException("Not a gym snapshot: " + file);
+        }
+        int version = in.getInt();
+        if (version < 1 || version > SCHEMA_VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " in " + file);
+        }
+        try {
+            long position = version >= 2 ? in.getLong() : 0;
+            new Reader(gym, in, version).read();
+            return position;
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("Truncated or corrupt snapshot: " + file, e);
+        }
+    }
+
+    /**
+     * Copies the state of the gym, everything but the header and the history. The caller holds the locks that
+     * keep the gym still.
+     */
+    private static final class Writer {
+        private final Gym gym;
+        private final DataOutputStream out;
+        private final Map<String, Integer> messageIndexes = new HashMap<>();
+        private final IntLinkedMap<Client> clients = new IntLinkedMap<>();
+        private final Map<Instructor, Integer> instructorIndexes = new IdentityHashMap<>();
+        private final List<List<long[]>> inboxes = new ArrayList<>();
+
+        Writer(Gym gym, DataOutputStream out) {
+            this.gym = gym;
+            this.out = out;
+        }
+
+        void write() throws IOException {
+            writeString(gym.name);
+            out.writeLong(gym.getBalanceGym());
+
+            // every client object reachable from the gym: the registered ones and participants that left the gym
+            for (Client c : gym.clients.values()) {
+                clients.put(c.getId(), c);
+            }
+            for (Session s : gym.sessions) {
+                for (Client c : s.getParticipants()) {
+                    clients.putIfAbsent(c.getId(), c);
+                }
+            }
+            for (Instructor i : gym.instructors) {
+                instructorIndexes.put(i, instructorIndexes.size());
+            }
+
+            writeMessages();
+            writePersons();
+            Secretary secretary = gym.getSecretary();
+            out.writeBoolean(secretary != null);
+            if (secretary != null) {
+                out.writeInt(secretary.getId());
+                out.writeInt(secretary.getSalary());
+            }
+            writeClients();
+            writeInstructors();
+            writeSessions();
+            out.flush();
+        }
+
+        private void writeMessages() throws IOException {
+            List<String> texts = new ArrayList<>();
+            long now = gym.clock.millis();
+            for (Client c : clients.values()) {
+                // copy each inbox once, since notifications may still arrive while the snapshot is written;
+                // a message ID is only valid while its inbox keeps the message, so the text is taken right away
+                List<long[]> messages = new ArrayList<>();
+                if (!c.hasInbox()) {
+                    inboxes.add(messages);
+                    continue;
+                }
+                c.getInbox().forEach(now, (id, time) -> {
+                    String text = MessageTable.textOf(id);
+                    Integer index = messageIndexes.get(text);
+                    if (index == null) {
+                        index = messageIndexes.size();
+                        messageIndexes.put(text, index);
+                        texts.add(text);
+                    }
+                    messages.add(new long[] {index, time});
+                });
+                inboxes.add(messages);
+            }
+            out.writeInt(texts.size());
+            for (String text : texts) {
+                writeString(text);
+            }
+        }
+
+        private void writePersons() throws IOException {
+            IntLinkedMap<Person> persons = new IntLinkedMap<>();
+            Secretary secretary = gym.getSecretary();
+            if (secretary != null) {
+                persons.put(secretary.getId(), secretary);
+            }
+            for (Instructor i : gym.instructors) {
+                persons.putIfAbsent(i.getId(), i);
+            }
+            for (Client c : clients.values()) {
+                persons.putIfAbsent(c.getId(), c);
+            }
+            out.writeInt(persons.size());
+            for (Person p : persons.values()) {
+                out.writeInt(p.getId());
+                writeString(p.getName());
+                out.writeLong(p.getBalanceLong());
+                out.writeByte(p.getGender().ordinal());
+                out.writeLong(p.getBirthDate().toEpochDay());
+            }
+        }
+
+        private void writeClients() throws IOException {
+            out.writeInt(clients.size());
+            int i = 0;
+            for (Client c : clients.values()) {
+                out.writeInt(c.getId());
+                out.writeBoolean(gym.clients.containsKey(c.getId()));
+                List<long[]> messages = inboxes.get(i++);
+                out.writeInt(messages.size());
+                for (long[] m : messages) {
+                    out.writeInt((int) m[0]);
+                    out.writeLong(m[1]);
+                }
+                // a session's ID is its position in the gym, which is also its index here
+                int[] booked = gym.enrollments.get(c);
+                out.writeInt(booked.length);
+                for (int id : booked) {
+                    out.writeInt(id);
+                }
+            }
+        }
+
+        private void writeInstructors() throws IOException {
+            out.writeInt(gym.instructors.size());
+            for (Instructor i : gym.instructors) {
+                out.writeInt(i.getId());
+                out.writeInt(i.getSalary());
+                out.writeInt(i.getExpertise().size());
+                for (SessionType type : i.getExpertise()) {
+                    out.writeByte(type.ordinal());
+                }
+                NavigableMap<LocalDate, Integer> unpaid = gym.payroll.getUnpaid(i);
+                out.writeInt(unpaid.size());
+                for (Map.Entry<LocalDate, Integer> e : unpaid.entrySet()) {
+                    out.writeLong(e.getKey().toEpochDay());
+                    out.writeInt(e.getValue());
+                }
+            }
+        }
+
+        private void writeSessions() throws IOException {
+            out.writeInt(gym.sessions.size());
+            for (Session s : gym.sessions) {
+                out.writeByte(s.getType().ordinal());
+                out.writeLong(s.getDateTime().toEpochSecond(ZoneOffset.UTC));
+                out.writeByte(s.getForum().ordinal());
+                Integer instructor = instructorIndexes.get(s.getInstructor());
+                out.writeInt(instructor == null ? -1 : instructor);
+                Lock lock = gym.sessionLocks.get(s);
+                lock.lock();
+                try {
+                    out.writeInt(s.getParticipantCount());
+                    for (Client c : s.getParticipants()) {
+                        out.writeInt(c.getId());
+                    }
+                    List<Client> waiting = gym.waitlist.get(s);
+                    // clients who left the gym while waiting would be skipped anyway
+                    waiting.removeIf(c -> !clients.containsKey(c.getId()));
+                    out.writeInt(waiting.size());
+                    for (Client c : waiting) {
+                        out.writeInt(c.getId());
+                    }
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        private void writeString(String s) throws IOException {
+            byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    /**
+     * Reads one snapshot, positioned after its header, into an empty gym.
+     */
+    private static final class Reader {
+        private final Gym gym;
+        private final ByteBuffer in;
+        private final int version;
+        private byte[] stringBytes = new byte[64];
+        private int[] messageIds;
+        private IntLinkedMap<Person> persons;
+        private IntLinkedMap<Client> clients;
+        private List<Client> clientList;
+        private final List<int[]> clientSessions = new ArrayList<>();
+        private final List<Instructor> instructors = new ArrayList<>();
+        private final List<Session> sessions = new ArrayList<>();
+
+        Reader(Gym gym, ByteBuffer in, int version) {
+            this.gym = gym;
+            this.in = in;
+            this.version = version;
+        }
+
+        void read() throws IOException {
+            String name = readString();
+            long balance = in.getLong();
+            readMessages();
+            int maxId;
+            Secretary secretary = null;
+            try {
+                maxId = readPersons();
+                if (in.get() != 0) {
+                    Person p = person(in.getInt());
+                    secretary = new Secretary(p, in.getInt(), gym);
+                }
+                readClients();
+            } finally {
+                // the inboxes took their own references to the messages they kept
+                for (int id : messageIds) {
+                    MessageTable.release(id);
+                }
+            }
+            readInstructors();
+            readSessions();
+            for (int i = 0; i < clientSessions.size(); i++) {
+                Client c = clientList.get(i);
+                for (int index : clientSessions.get(i)) {
+                    if (index >= 0) {
+                        gym.enrollments.add(c, sessions.get(index));
+                    }
+                }
+            }
+
+            gym.name = name;
+            gym.secretary = secretary;
+            gym.balanceGym.add(balance - gym.getBalanceGym());
+            Person.reserveIdsUpTo(maxId);
+            readJournal();
+        }
+
+        private void readMessages() throws IOException {
+            messageIds = new int[in.getInt()];
+            for (int i = 0; i < messageIds.length; i++) {
+                messageIds[i] = MessageTable.retain(readString());
+            }
+        }
+
+        private int readPersons() throws IOException {
+            int count = in.getInt();
+            persons = new IntLinkedMap<>(count);
+            int maxId = 0;
+            Gender[] genders = Gender.values();
+            for (int i = 0; i < count; i++) {
+                int id = in.getInt();
+                String name = readString();
+                Person.Balance balance = new Person.Balance(version >= 5 ? in.getLong() : in.getInt());
+                Gender gender = genders[in.get()];
+                LocalDate birthDate = LocalDate.ofEpochDay(in.getLong());
+                persons.put(id, new Person(name, balance, gender, birthDate, id));
+                maxId = Math.max(maxId, id);
+            }
+            return maxId;
+        }
+
+        private void readClients() throws IOException {
+            int count = in.getInt();
+            clients = new IntLinkedMap<>(count);
+            clientList = new ArrayList<>(count);
+            Lock lock = gym.clientsLock.writeLock();
+            lock.lock();
+            try {
+                // the gym is empty, so its registry can be replaced by one sized for the snapshot
+                gym.clients = new IntLinkedMap<>(count);
+                for (int i = 0; i < count; i++) {
+                    int id = in.getInt();
+                    boolean registered = in.get() != 0;
+                    Client c = new Client(person(id));
+                    int messages = in.getInt();
+                    for (int m = 0; m < messages; m++) {
+                        int index = in.getInt();
+                        c.getInbox().add(messageIds[index], in.getLong());
+                    }
+                    int[] booked = new int[in.getInt()];
+                    for (int b = 0; b < booked.length; b++) {
+                        booked[b] = in.getInt();
+                    }
+                    clients.put(id, c);
+                    clientList.add(c);
+                    clientSessions.add(booked);
+                    if (registered) {
+                        gym.clients.put(id, c);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void readInstructors() throws IOException {
+            int count = in.getInt();
+            SessionType[] types = SessionType.values();
+            for (int i = 0; i < count; i++) {
+                Person p = person(in.getInt());
+                int salary = in.getInt();
+                List<SessionType> expertise = new ArrayList<>();
+                int expertiseCount = in.getInt();
+                for (int e = 0; e < expertiseCount; e++) {
+                    expertise.add(types[in.get()]);
+                }
+                Instructor instructor = new Instructor(p, salary, expertise);
+                int days = in.getInt();
+                for (int d = 0; d < days; d++) {
+                    LocalDate day = LocalDate.ofEpochDay(in.getLong());
+                    gym.payroll.addSessions(instructor, day, in.getInt());
+                }
+                instructors.add(instructor);
+                gym.instructors.add(instructor);
+            }
+        }
+
+        private void readSessions() throws IOException {
+            int count = in.getInt();
+            SessionType[] types = SessionType.values();
+            ForumType[] forums = ForumType.values();
+            for (int i = 0; i < count; i++) {
+                SessionType type = types[in.get()];
+                LocalDateTime dateTime = LocalDateTime.ofEpochSecond(in.getLong(), 0, ZoneOffset.UTC);
+                ForumType forum = forums[in.get()];
+                int instructorIndex = in.getInt();
+                Instructor instructor = instructorIndex < 0 ? null : instructors.get(instructorIndex);
+                Session s = SessionFactory.createSession(type, instructor, dateTime, forum);
+                int participants = in.getInt();
+                for (int p = 0; p < participants; p++) {
+                    s.registerClient(client(in.getInt()));
+                }
+                int waiting = version >= 3 ? in.getInt() : 0;
+                for (int w = 0; w < waiting; w++) {
+                    gym.waitlist.add(s, client(in.getInt()));
+                }
+                if (instructor != null) {
+                    instructor.getSessions().add(s);
+                }
+                s.setId(sessions.size());
+                sessions.add(s);
+                gym.sessions.add(s);
+                gym.schedule.load(s);
+                gym.sessionsByDate.computeIfAbsent(dateTime.toLocalDate(), d -> new CopyOnWriteArrayList<>()).add(s);
+            }
+        }
+
+        private void readJournal() {
+            if (version >= 4) {
+                long end = in.getLong();
+                if (in.get() == 0) {
+                    // the history was reopened on its own; actions after the snapshot are recorded again
+                    // when the write-ahead log is replayed
+                    gym.actionsHistory.getJournal().truncate(end);
+                    return;
+                }
+            }
+            MappedJournal journal = gym.actionsHistory.getJournal();
+            boolean restore = journal.getWritePosition() == 0;
+            while (in.get() != 0) {
+                byte code = in.get();
+                long timestamp = in.getLong();
+                int id1 = in.getInt();
+                int id2 = in.getInt();
+                long value1 = in.getLong();
+                long value2 = in.getLong();
+                int textLength = in.getInt();
+                CharBuffer text = in.slice().asCharBuffer();
+                text.limit(textLength);
+                in.position(in.position() + textLength * 2);
+                if (restore) {
+                    journal.append(code, timestamp, id1, id2, value1, value2, textLength == 0 ? null : text);
+                }
+            }
+        }
+
+        private Person person(int id) throws IOException {
+            Person p = persons.get(id);
+            if (p == null) {
+                throw new IOException("Snapshot refers to unknown person " + id);
+            }
+            return p;
+        }
+
+        private Client client(int id) throws IOException {
+            Client c = clients.get(id);
+            if (c == null) {
+                throw new IOException("Snapshot refers to unknown client " + id);
+            }
+            return c;
+        }
+
+        private String readString() {
+            int length = in.getInt();
+            if (stringBytes.length < length) {
+                stringBytes = new byte[Math.max(length, stringBytes.length * 2)];
+            }
+            in.get(stringBytes, 0, length);
+            return new String(stringBytes, 0, length, StandardCharsets.UTF_8);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package gym.management;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a bulk import: how many rows were imported and why the other rows were rejected.
+ */
+public class ImportResult {
+    private int imported;
+    private final List<RowError> errors = new ArrayList<>();
+
+    /**
+     * Retrieves the number of rows imported into the gym.
+     *
+     * @return the number of imported rows
+     */
+    public int getImported() {
+        return imported;
+    }
+
+    /**
+     * Retrieves the rejected rows, in input order.
+     *
+     * @return an unmodifiable list of the row errors
+     */
+    public List<RowError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    void addImported() {
+        imported++;
+    }
+
+    void addError(int line, String message) {
+        errors.add(new RowError(line, message));
+    }
+
+    /**
+     * Summarizes the import.
+     *
+     * @return the number of imported and rejected rows
+     */
+    @Override
+    public String toString() {
+        return "Imported: " + imported + " | Rejected: " + errors.size();
+    }
+
+    /**
+     * A row that could not be imported.
+     */
+    public static class RowError {
+        private final int line;
+        private final String message;
+
+        RowError(int line, String message) {
+            this.line = line;
+            this.message = message;
+        }
+
+        /**
+         * Retrieves the line number of the row, starting at 1.
+         *
+         * @return the line number
+         */
+        public int getLine() {
+            return line;
+        }
+
+        /**
+         * Retrieves the reason the row was rejected.
+         *
+         * @return the error message
+         */
+        public String getMessage() {
+            return message;
+        }
+
+        /**
+         * Returns the line number and the reason the row was rejected.
+         *
+         * @return the formatted error
+         */
+        @Override
+        public String toString() {
+            return "Line " + line + ": " + message;
+        }
+    }
+}
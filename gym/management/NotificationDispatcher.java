@@ -0,0 +1,309 @@
+package gym.management;
+
+import gym.util.GymClock;
+
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Delivers notifications to observers asynchronously, in batches, on a fork-join pool shared by every dispatcher
+ * of the process. A dispatcher owns no threads, so every gym can have its own without adding threads, and the
+ * pool's idle workers stop on their own.
+ * <p>
+ * Every observer is mapped to one queue ("lane") and each lane delivers its batches in order, one pool task at a
+ * time, so an observer receives messages in the order they were sent while different observers are served in
+ * parallel. Lane queues are bounded: when delivery falls behind, sending blocks until there is room again, even if
+ * the sender is interrupted. Callers therefore send after releasing their locks.
+ */
+public class NotificationDispatcher {
+    private static final int DEFAULT_BATCH_SIZE = 256;
+    private static final int DEFAULT_QUEUE_CAPACITY = 1024;
+
+    /** The workers shared by all dispatchers. Only lanes run on it, never senders, so a full lane cannot starve it. */
+    private static final ForkJoinPool WORKERS = new ForkJoinPool(Math.min(4, Runtime.getRuntime().availableProcessors()),
+            pool -> {
+                ForkJoinWorkerThread worker = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                worker.setName("gym-notifications-" + worker.getPoolIndex());
+                return worker;
+            }, null, true);
+
+    private final GymClock clock;
+    private final Lane[] lanes;
+    private final int batchSize;
+    private volatile boolean closed;
+
+    /**
+     * Constructs a dispatcher with one lane per available processor, up to four, that stamps messages with the
+     * system clock.
+     */
+    public NotificationDispatcher() {
+        this(GymClock.system());
+    }
+
+    /**
+     * Constructs a dispatcher with one lane per available processor, up to four.
+     *
+     * @param clock the clock messages are stamped with when they are sent, e.g. the gym's
+     */
+    public NotificationDispatcher(GymClock clock) {
+        this(clock, Math.min(4, Runtime.getRuntime().availableProcessors()), DEFAULT_BATCH_SIZE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * Constructs a dispatcher that stamps messages with the system clock.
+     *
+     * @param laneCount     the number of lanes, i.e. how many observers can be delivered to at the same time
+     * @param batchSize     the maximum number of observers delivered to in one batch
+     * @param queueCapacity the number of batches each lane can hold before sending blocks
+     */
+    public NotificationDispatcher(int laneCount, int batchSize, int queueCapacity) {
+        this(GymClock.system(), laneCount, batchSize, queueCapacity);
+    }
+
+    /**
+     * Constructs a dispatcher.
+     *
+     * @param clock         the clock messages are stamped with when they are sent, e.g. the gym's
+     * @param laneCount     the number of lanes, i.e. how many observers can be delivered to at the same time
+     * @param batchSize     the maximum number of observers delivered to in one batch
+     * @param queueCapacity the number of batches each lane can hold before sending blocks
+     */
+    public NotificationDispatcher(GymClock clock, int laneCount, int batchSize, int queueCapacity) {
+        this.clock = clock;
+        this.batchSize = batchSize;
+        this.lanes = new Lane[Math.max(1, laneCount)];
+        for (int i = 0; i < lanes.length; i++) {
+            lanes[i] = new Lane(queueCapacity, i);
+        }
+    }
+
+    /**
+     * Starts a message to many observers. Add the recipients to the returned broadcast and then send it.
+     *
+     * @param message the message to deliver
+     * @return the broadcast collecting the recipients
+     */
+    public Broadcast broadcast(String message) {
+        checkOpen();
+        return new Broadcast(message);
+    }
+
+    /**
+     * Sends a message to a single observer.
+     *
+     * @param observer the recipient
+     * @param message  the message to deliver
+     */
+    public void send(Observer observer, String message) {
+        checkOpen();
+        Batch batch = new Batch(message, clock.millis(), 1);
+        batch.add(observer);
+        laneOf(observer).put(batch);
+    }
+
+    /**
+     * Waits until every message sent before this call has been delivered.
+     */
+    public void flush() {
+        CountDownLatch done = new CountDownLatch(lanes.length);
+        for (Lane lane : lanes) {
+            lane.put(new Barrier(done));
+        }
+        try {
+            done.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Delivers the messages already sent and stops accepting new ones. Called when the gym is closed.
+     */
+    public void close() {
+        closed = true;
+        flush();
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The notification dispatcher is closed");
+        }
+    }
+
+    private Lane laneOf(Observer observer) {
+        int h = System.identityHashCode(observer);
+        return lanes[((h ^ (h >>> 16)) & Integer.MAX_VALUE) % lanes.length];
+    }
+
+    /**
+     * A message being addressed to many observers. Recipients are grouped into one batch per lane;
+     * full batches are handed to their lane right away and the rest when the broadcast is sent.
+     */
+    public class Broadcast {
+        private final String message;
+        private final long sentAt;
+        private final Batch[] pending = new Batch[lanes.length];
+
+        private Broadcast(String message) {
+            this.message = message;
+            this.sentAt = clock.millis();
+        }
+
+        /**
+         * Adds a recipient to the broadcast.
+         *
+         * @param observer the recipient
+         */
+        public void add(Observer observer) {
+            Lane lane = laneOf(observer);
+            Batch batch = pending[lane.index];
+            if (batch == null) {
+                batch = new Batch(message, sentAt, batchSize);
+                pending[lane.index] = batch;
+            }
+            batch.add(observer);
+            if (batch.isFull()) {
+                lane.put(batch);
+                pending[lane.index] = null;
+            }
+        }
+
+        /**
+         * Hands the remaining recipients to their lanes. Delivery happens in the background.
+         */
+        public void send() {
+            for (int i = 0; i < pending.length; i++) {
+                if (pending[i] != null) {
+                    lanes[i].put(pending[i]);
+                    pending[i] = null;
+                }
+            }
+        }
+    }
+
+    /**
+     * A unit of work for a lane.
+     */
+    private interface Task {
+        void run();
+    }
+
+    /**
+     * A message, the time it was sent and a group of observers of the same lane to deliver it to.
+     */
+    private static class Batch implements Task {
+        private final String message;
+        private final long sentAt;
+        private final int capacity;
+        private Observer[] observers;
+        private int size;
+
+        Batch(String message, long sentAt, int capacity) {
+            this.message = message;
+            this.sentAt = sentAt;
+            this.capacity = capacity;
+            this.observers = new Observer[Math.min(capacity, 16)];
+        }
+
+        void add(Observer observer) {
+            if (size == observers.length) {
+                observers = Arrays.copyOf(observers, Math.min(capacity, size * 2));
+            }
+            observers[size++] = observer;
+        }
+
+        boolean isFull() {
+            return size == capacity;
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < size; i++) {
+                try {
+                    observers[i].update(message, sentAt);
+                } catch (RuntimeException e) {
+                    // one failing observer must not stop delivery to the rest of the batch
+                    Thread t = Thread.currentThread();
+                    t.getUncaughtExceptionHandler().uncaughtException(t, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Marks the point a lane must reach for a flush to complete.
+     */
+    private static class Barrier implements Task {
+        private final CountDownLatch done;
+
+        Barrier(CountDownLatch done) {
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            done.countDown();
+        }
+    }
+
+    /**
+     * A bounded queue of tasks delivered in order. While it has tasks, exactly one pool task drains it.
+     */
+    private static class Lane implements Runnable {
+        /** The most tasks delivered before the lane lets the other lanes have the worker. */
+        private static final int DRAIN_LIMIT = 64;
+
+        private final BlockingQueue<Task> queue;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final int index;
+
+        Lane(int capacity, int index) {
+            this.queue = new ArrayBlockingQueue<>(capacity);
+            this.index = index;
+        }
+
+        void put(Task task) {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    queue.put(task);
+                    break;
+                } catch (InterruptedException e) {
+                    // keep waiting: running the task here would overtake the tasks queued before it
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            schedule();
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                WORKERS.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            for (int i = 0; i < DRAIN_LIMIT; i++) {
+                Task task = queue.poll();
+                if (task == null) {
+                    break;
+                }
+                task.run();
+            }
+            scheduled.set(false);
+            // a task added after the last poll found the lane still scheduled and left it to us
+            if (!queue.isEmpty()) {
+                schedule();
+            }
+        }
+    }
+}
@@ -2,4 +2,15 @@ package gym.management;
 
 public interface Observer {
     void update(String message);
+
+    /**
+     * Receives a message sent at a given time, e.g. by a gym whose clock is not the system clock.
+     * Observers that do not keep the time can leave this to {@link #update(String)}.
+     *
+     * @param message the message
+     * @param now     the time the message was sent, in epoch milliseconds
+     */
+    default void update(String message, long now) {
+        update(message);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,154 @@
+package gym.management;
+
+import gym.customers.Instructor;
+
+import java.time.LocalDate;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Keeps track of the sessions each instructor has not been paid for yet.
+ * Sessions are counted per instructor and per day as they are added, so a payroll run only visits
+ * the instructors with unpaid sessions instead of recounting every session ever held.
+ */
+class Payroll {
+    private final Map<Instructor, Ledger> ledgers = new IdentityHashMap<>();
+
+    /**
+     * Records a new session an instructor has to be paid for.
+     *
+     * @param instructor the instructor conducting the session
+     * @param day        the day the session takes place on
+     */
+    synchronized void addSession(Instructor instructor, LocalDate day) {
+        ledgers.computeIfAbsent(instructor, i -> new Ledger()).add(day);
+    }
+
+    /**
+     * Records several unpaid sessions of an instructor on one day, e.g. when loading a saved gym.
+     *
+     * @param instructor the instructor conducting the sessions
+     * @param day        the day the sessions take place on
+     * @param count      the number of unpaid sessions
+     */
+    synchronized void addSessions(Instructor instructor, LocalDate day, int count) {
+        Ledger ledger = ledgers.computeIfAbsent(instructor, i -> new Ledger());
+        ledger.unpaidByDay.computeIfAbsent(day, d -> new int[1])[0] += count;
+        ledger.unpaid += count;
+    }
+
+    /**
+     * Retrieves the unpaid sessions of an instructor.
+     *
+     * @param instructor the instructor
+     * @return a copy of the number of unpaid sessions per day, in day order
+     */
+    synchronized NavigableMap<LocalDate, Integer> getUnpaid(Instructor instructor) {
+        NavigableMap<LocalDate, Integer> unpaid = new TreeMap<>();
+        Ledger ledger = ledgers.get(instructor);
+        if (ledger != null) {
+            ledger.unpaidByDay.forEach((day, count) -> unpaid.put(day, count[0]));
+        }
+        return unpaid;
+    }
+
+    /**
+     * Pays every instructor for all their unpaid sessions. If any instructor's pay overflows, nobody is paid.
+     *
+     * @return the total amount paid
+     * @throws ArithmeticException if the pay of an instructor does not fit in a balance
+     */
+    synchronized long payAll() {
+        for (Map.Entry<Instructor, Ledger> e : ledgers.entrySet()) {
+            amount(e.getKey(), e.getValue().unpaid);
+        }
+        long paid = 0;
+        for (Map.Entry<Instructor, Ledger> e : ledgers.entrySet()) {
+            Ledger ledger = e.getValue();
+            if (ledger.unpaid > 0) {
+                paid += pay(e.getKey(), ledger.unpaid);
+                ledger.unpaidByDay.clear();
+                ledger.unpaid = 0;
+            }
+        }
+        return paid;
+    }
+
+    /**
+     * Pays every instructor for their unpaid sessions taking place between two days, inclusive.
+     * If any instructor's pay overflows, nobody is paid.
+     *
+     * @param from the first day of the pay period
+     * @param to   the last day of the pay period
+     * @return the total amount paid
+     * @throws ArithmeticException if the pay of an instructor does not fit in a balance
+     */
+    synchronized long pay(LocalDate from, LocalDate to) {
+        for (Map.Entry<Instructor, Ledger> e : ledgers.entrySet()) {
+            amount(e.getKey(), count(e.getValue().unpaidByDay.subMap(from, true, to, true)));
+        }
+        long paid = 0;
+        for (Map.Entry<Instructor, Ledger> e : ledgers.entrySet()) {
+            Ledger ledger = e.getValue();
+            if (ledger.unpaid == 0) {
+                continue;
+            }
+            NavigableMap<LocalDate, int[]> period = ledger.unpaidByDay.subMap(from, true, to, true);
+            int sessions = count(period);
+            if (sessions > 0) {
+                paid += pay(e.getKey(), sessions);
+                period.clear();
+                ledger.unpaid -= sessions;
+            }
+        }
+        return paid;
+    }
+
+    private static int count(NavigableMap<LocalDate, int[]> period) {
+        int sessions = 0;
+        for (int[] count : period.values()) {
+            sessions += count[0];
+        }
+        return sessions;
+    }
+
+    /**
+     * Credits an instructor for a number of sessions.
+     *
+     * @param instructor the instructor to pay
+     * @param sessions   the number of sessions
+     * @return the amount paid
+     */
+    private static long pay(Instructor instructor, int sessions) {
+        int amount = amount(instructor, sessions);
+        instructor.getBalance().addBalance(amount);
+        return amount;
+    }
+
+    /**
+     * Computes the pay of an instructor for a number of sessions.
+     *
+     * @param instructor the instructor
+     * @param sessions   the number of sessions
+     * @return the amount to pay
+     * @throws ArithmeticException if the amount does not fit in an int
+     */
+    private static int amount(Instructor instructor, int sessions) {
+        return Math.toIntExact((long) sessions * instructor.getSalary());
+    }
+
+    /**
+     * The unpaid sessions of one instructor.
+     */
+    private static class Ledger {
+        private final NavigableMap<LocalDate, int[]> unpaidByDay = new TreeMap<>();
+        private int unpaid;
+
+        void add(LocalDate day) {
+            unpaidByDay.computeIfAbsent(day, d -> new int[1])[0]++;
+            unpaid++;
+        }
+    }
+}
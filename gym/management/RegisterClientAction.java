@@ -4,13 +4,24 @@ import gym.Exception.*;
 import gym.customers.Client;
 import gym.customers.Person;
 import gym.management.Sessions.Session;
+import gym.management.events.*;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
 
 /**
  * This class provides static methods for managing client registration actions in the gym.
  * It handles registering clients to the gym, enrolling them in sessions, and unregistering them from the gym.
+ * Bookings share the gym's client read lock and lock only the session they enroll in, so bookings to different
+ * sessions run in parallel while changes to the client registry are exclusive.
+ * <p>
+ * A client who only fails a booking because the session is full joins the session's waitlist. When a participant
+ * leaves the gym, the freed seats go to the waiting clients, longest waiting first, who are notified of the booking.
  */
 public abstract class RegisterClientAction {
 
@@ -27,15 +38,29 @@ public abstract class RegisterClientAction {
         if (p2.getBirthDate() == null) {
             throw new InvalidAgeException("Error: Birth date is null!");
         }
-        if (p2.getAge() < 18) {
+        if (p2.getAge(secretary.gym.clock.today()) < 18) {
             throw new InvalidAgeException("Error: Client must be at least 18 years old to register");
         }
         Client c = new Client(p2);
-        if (secretary.gym.clients.contains(c)) {
-            throw new DuplicateClientException("Error: The client is already registered");
+        WriteAheadLog wal = secretary.gym.writeAheadLog;
+        long logged = 0;
+        Lock lock = secretary.gym.clientsLock.writeLock();
+        lock.lock();
+        try {
+            if (!secretary.gym.clients.putIfAbsent(c.getId(), c)) {
+                throw new DuplicateClientException("Error: The client is already registered");
+            }
+            if (wal != null) {
+                logged = wal.logRegisterClient(c);
+            }
+            // recorded under the same lock as the log record, so a snapshot includes both or neither
+            secretary.gym.actionsHistory.add(new ClientRegistered(c.getId(), c.getName()));
+        } finally {
+            lock.unlock();
+        }
+        if (wal != null) {
+            wal.awaitDurable(logged);
         }
-        secretary.gym.clients.add(c);
-        secretary.gym.actionsHistory.add("Registered new client: " + c.getName());
         return c;
     }
 
@@ -49,70 +74,431 @@ public abstract class RegisterClientAction {
      * @throws ClientNotRegisteredException if the client is not registered in the gym
      */
     public static void registerClientToLesson(Client c1, Session s1, Secretary secretary) throws DuplicateClientException, ClientNotRegisteredException {
-        boolean doneIf = false;
+        int result = tryRegisterClientToLesson(c1, s1, secretary);
+        if ((result & BookingResult.DUPLICATE) != 0) {
+            throw new DuplicateClientException("Error: The client is already registered for this lesson", false);
+        }
+        if ((result & BookingResult.NOT_REGISTERED) != 0) {
+            throw new ClientNotRegisteredException("Error: The client is not registered with the gym and cannot enroll in lessons", false);
+        }
+    }
 
-        List<Client> clients = secretary.gym.clients;
+    /**
+     * Registers a client for a gym session without throwing on an expected failure. The checks, charges and
+     * records are the same as {@link #registerClientToLesson}'s, and every failed check is reported at once.
+     *
+     * @param c1 the client to register
+     * @param s1 the session to enroll the client in
+     * @param secretary the secretary managing the gym operations
+     * @return the outcome of the booking as {@link BookingResult} flags
+     */
+    public static int tryRegisterClientToLesson(Client c1, Session s1, Secretary secretary) {
+        WriteAheadLog wal = secretary.gym.writeAheadLog;
+        long logged = 0;
+        int result;
+        Lock clientsLock = secretary.gym.clientsLock.readLock();
+        Lock sessionLock = secretary.gym.sessionLocks.get(s1);
+        clientsLock.lock();
+        sessionLock.lock();
+        try {
+            // the price can change at any time, so check, charge and record the same amount
+            int price = s1.getPrice();
+            result = attempt(c1, s1, price, s1.getParticipantCount() == s1.getMaxParticipants(), secretary.gym.clock.now(), secretary);
+            if (result == BookingResult.BOOKED) {
+                secretary.addToBalanceGym(price);
+            }
+            if (wal != null && isLogged(result)) {
+                logged = wal.logBooking(c1, s1, price, result & ~BookingResult.WAITLISTED);
+            }
+        } finally {
+            sessionLock.unlock();
+            clientsLock.unlock();
+        }
+        if (wal != null && logged != 0) {
+            wal.awaitDurable(logged);
+        }
+        return result;
+    }
 
-        if (s1.getParticipants().contains(c1)) {
-            throw new DuplicateClientException("Error: The client is already registered for this lesson");
+    /**
+     * Registers clients to sessions in one call. The requests are grouped by session, so each session is locked
+     * once and its remaining capacity is tracked across the group; within a session, requests are handled in the
+     * order given. Each request is checked and recorded like a single booking, but the gym is credited once for the
+     * whole batch and the write-ahead log is forced once.
+     *
+     * @param requests the bookings to make
+     * @param secretary the secretary managing the gym operations
+     * @return the outcome of each request, in request order, as {@link BookingResult} flags
+     */
+    public static int[] registerClientsToLessons(Collection<BookingRequest> requests, Secretary secretary) {
+        Gym gym = secretary.gym;
+        int[] results = new int[requests.size()];
+        // the indexes of the requests for each session, with the sessions in order of first appearance
+        Map<Session, List<Integer>> bySession = new IdentityHashMap<>();
+        List<Session> sessions = new ArrayList<>();
+        List<Client> clients = new ArrayList<>(requests.size());
+        for (BookingRequest request : requests) {
+            List<Integer> indexes = bySession.get(request.getSession());
+            if (indexes == null) {
+                indexes = new ArrayList<>();
+                bySession.put(request.getSession(), indexes);
+                sessions.add(request.getSession());
+            }
+            indexes.add(clients.size());
+            clients.add(request.getClient());
         }
 
-        if (!clients.contains(c1)) {
-            throw new ClientNotRegisteredException("Error: The client is not registered with the gym and cannot enroll in lessons");
+        WriteAheadLog wal = gym.writeAheadLog;
+        long logged = 0;
+        long credit = 0;
+        LocalDateTime now = gym.clock.now();
+        Lock clientsLock = gym.clientsLock.readLock();
+        clientsLock.lock();
+        try {
+            for (Session s1 : sessions) {
+                Lock sessionLock = gym.sessionLocks.get(s1);
+                sessionLock.lock();
+                try {
+                    int free = s1.getMaxParticipants() - s1.getParticipantCount();
+                    int price = s1.getPrice();
+                    for (int i : bySession.get(s1)) {
+                        Client c1 = clients.get(i);
+                        int result = attempt(c1, s1, price, free <= 0, now, secretary);
+                        if (result == BookingResult.BOOKED) {
+                            credit += price;
+                            free--;
+                        }
+                        if (wal != null && isLogged(result)) {
+                            logged = wal.logBooking(c1, s1, price, result & ~BookingResult.WAITLISTED);
+                        }
+                        results[i] = result;
+                    }
+                } finally {
+                    sessionLock.unlock();
+                }
+            }
+            // credited before the client lock is released, so a snapshot never sees the debits without the credit
+            if (credit != 0) {
+                gym.balanceGym.add(credit);
+            }
+        } finally {
+            clientsLock.unlock();
+        }
+        if (wal != null && logged != 0) {
+            wal.awaitDurable(logged);
         }
+        return results;
+    }
+
+    /**
+     * Applies the recorded outcome of a booking again, when the gym is restored from its write-ahead log.
+     *
+     * @param c1 the client
+     * @param s1 the session
+     * @param price the price the client paid
+     * @param failed the failed checks, or 0 if the client was booked
+     * @param secretary the secretary managing the gym operations
+     */
+    static void replayBooking(Client c1, Session s1, int price, int failed, Secretary secretary) {
+        if (failed == 0) {
+            c1.getBalance().reduceBalance(price);
+            book(c1, s1, price, secretary);
+        } else {
+            recordFailures(s1, failed, secretary);
+            waitlistIfFull(c1, s1, failed, secretary);
+        }
+    }
+
+    /**
+     * Applies the recorded outcome of a waitlist promotion again, when the gym is restored from its write-ahead log.
+     * Clients ahead of the promoted one had left the gym and are dropped, as they were when the promotion was made.
+     *
+     * @param c1 the client taken from the waitlist
+     * @param s1 the session
+     * @param price the price the client paid
+     * @param failed the failed checks, or 0 if the client was booked
+     * @param secretary the secretary managing the gym operations
+     */
+    static void replayPromotion(Client c1, Session s1, int price, int failed, Secretary secretary) {
+        Client next;
+        do {
+            next = secretary.gym.waitlist.poll(s1);
+        } while (next != null && !next.equals(c1));
+        if (failed == 0) {
+            c1.getBalance().reduceBalance(price);
+            book(c1, s1, price, secretary);
+            secretary.gym.notifications.send(c1, promotionMessage(s1));
+        } else {
+            recordFailures(s1, failed, secretary);
+        }
+    }
+
+    /**
+     * Makes one booking: checks it, charges and enrolls the client if every check passes, and otherwise records
+     * the failures and waitlists the client if the session was the only obstacle. The gym is not credited and nothing
+     * is logged; that is left to the caller, who holds the gym's client read lock and the session's lock.
+     *
+     * @param c1 the client
+     * @param s1 the session
+     * @param price the price the client would be charged
+     * @param full whether the session has no free seats
+     * @param now the current time
+     * @param secretary the secretary managing the gym operations
+     * @return the outcome of the booking as {@link BookingResult} flags
+     */
+    private static int attempt(Client c1, Session s1, int price, boolean full, LocalDateTime now, Secretary secretary) {
+        if (s1.hasParticipant(c1)) {
+            return BookingResult.DUPLICATE;
+        }
+        if (!secretary.gym.clients.containsKey(c1.getId())) {
+            return BookingResult.NOT_REGISTERED;
+        }
+        int failed = full ? failureBit(RegistrationFailed.Reason.NO_SPOTS) : 0;
+        failed |= check(c1, s1, price, now);
+
+        // the balance may be shared with another role of the same person, so debit it atomically
+        if (failed == 0 && !c1.getBalance().tryDebit(price)) {
+            failed = failureBit(RegistrationFailed.Reason.BALANCE);
+        }
+        if (failed == 0) {
+            enroll(c1, s1, price, secretary);
+            return BookingResult.BOOKED;
+        }
+        recordFailures(s1, failed, secretary);
+        if (waitlistIfFull(c1, s1, failed, secretary)) {
+            failed |= BookingResult.WAITLISTED;
+        }
+        return failed;
+    }
+
+    /**
+     * Checks if the outcome of a booking goes into the write-ahead log. Bookings rejected before any check is made
+     * change nothing and are not logged.
+     */
+    private static boolean isLogged(int result) {
+        return (result & (BookingResult.DUPLICATE | BookingResult.NOT_REGISTERED)) == 0;
+    }
 
-        if (s1.getParticipants().size() == s1.getMaxParticipants()) {
-            secretary.gym.actionsHistory.add("Failed registration: No available spots for session");
-            doneIf = true;
+    /**
+     * Runs the checks of a booking that depend on the client: the session time, the forum and the balance.
+     * The capacity check is left to the caller.
+     *
+     * @param c1 the client
+     * @param s1 the session
+     * @param price the price the client would be charged
+     * @param now the current time
+     * @return the failed checks, or 0 if all of them passed
+     */
+    private static int check(Client c1, Session s1, int price, LocalDateTime now) {
+        int failed = 0;
+        if (!s1.getDateTime().isAfter(now)) {
+            failed |= failureBit(RegistrationFailed.Reason.NOT_FUTURE);
         }
 
-        if (!s1.getDateTime().isAfter(LocalDateTime.now())) {
-            secretary.gym.actionsHistory.add("Failed registration: Session is not in the future");
-            doneIf = true;
+        // the bits the client lacks for the session's forum
+        int missing = s1.getForum().getRequiredMask() & ~c1.getEligibility(now.toLocalDate());
+        if (missing != 0) {
+            if ((missing & (Client.SENIOR | Client.ADULT)) != 0) {
+                failed |= failureBit(RegistrationFailed.Reason.AGE);
+            }
+            if ((missing & (Client.MALE | Client.FEMALE)) != 0) {
+                failed |= failureBit(RegistrationFailed.Reason.GENDER);
+            }
         }
 
-        if (s1.getForum().toString().equals("Seniors") && c1.getAge() < 65) {
-            secretary.gym.actionsHistory.add("Failed registration: Client doesn't meet the age requirements for this session (" + s1.getForum().toString() + ")");
-            doneIf = true;
+        if (c1.getBalanceLong() < price) {
+            failed |= failureBit(RegistrationFailed.Reason.BALANCE);
         }
+        return failed;
+    }
 
-        if ((s1.getForum().toString().equals("Female") && c1.getGender().toString().equals("Male")) ||
-                (s1.getForum().toString().equals("Male") && c1.getGender().toString().equals("Female"))) {
-            secretary.gym.actionsHistory.add("Failed registration: Client's gender doesn't match the session's gender requirements");
-            doneIf = true;
+    /**
+     * Puts a client on a session's waitlist if the session being full was the only reason the booking failed.
+     *
+     * @return true if the client is now on the waitlist, including if they already were
+     */
+    private static boolean waitlistIfFull(Client c1, Session s1, int failed, Secretary secretary) {
+        if (failed != failureBit(RegistrationFailed.Reason.NO_SPOTS)) {
+            return false;
         }
+        secretary.gym.waitlist.dropStarted(secretary.gym.clock.now());
+        if (secretary.gym.waitlist.add(s1, c1)) {
+            secretary.gym.actionsHistory.add(new WaitlistJoined(c1.getId(), c1.getName(), s1.getType(), s1.getDateTime()));
+        }
+        return true;
+    }
 
-        if (c1.getBalanceInt() - s1.getPrice() < 0) {
-            secretary.gym.actionsHistory.add("Failed registration: Client doesn't have enough balance");
-            doneIf = true;
+    /**
+     * Books waiting clients into the free seats of a session, longest waiting first.
+     * Waiting clients who have left the gym are dropped; those who no longer pass the booking checks are dropped
+     * with a failed registration. Nobody is taken from the waitlist once the session has started. The caller holds the gym's client write lock and the session's lock, and notifies
+     * the booked clients once it has released them.
+     *
+     * @param s1 the session with free seats
+     * @param secretary the secretary managing the gym operations
+     * @param wal the gym's write-ahead log, or null
+     * @param promoted receives the booked clients
+     * @return the log position of the last promotion, or 0 if none was logged
+     */
+    private static long promote(Session s1, Secretary secretary, WriteAheadLog wal, List<Client> promoted) {
+        Gym gym = secretary.gym;
+        long logged = 0;
+        LocalDateTime now = gym.clock.now();
+        // every waiting client would fail the time check, so leave the list to be dropped
+        if (!s1.getDateTime().isAfter(now)) {
+            return 0;
         }
+        while (s1.getParticipantCount() < s1.getMaxParticipants()) {
+            Client c1 = gym.waitlist.poll(s1);
+            if (c1 == null) {
+                break;
+            }
+            if (!gym.clients.containsKey(c1.getId()) || s1.hasParticipant(c1)) {
+                continue;
+            }
+            int price = s1.getPrice();
+            int failed = check(c1, s1, price, now);
+            if (failed == 0 && !c1.getBalance().tryDebit(price)) {
+                failed = failureBit(RegistrationFailed.Reason.BALANCE);
+            }
+            if (failed == 0) {
+                book(c1, s1, price, secretary);
+                promoted.add(c1);
+            } else {
+                recordFailures(s1, failed, secretary);
+            }
+            if (wal != null) {
+                logged = wal.logPromotion(c1, s1, price, failed);
+            }
+        }
+        return logged;
+    }
+
+    /**
+     * Maps a failed check to the bit representing it in a set of failures.
+     *
+     * @param reason the failed check
+     * @return the bit of the check
+     */
+    static int failureBit(RegistrationFailed.Reason reason) {
+        return 1 << reason.ordinal();
+    }
 
-        if (!doneIf) {
-            s1.registerClient(c1);
-            c1.getBalance().reduceBalance(s1.getPrice());
-            secretary.addToBalanceGym(s1.getPrice());
-            secretary.gym.actionsHistory.add("Registered client: " + c1.getName() + " to session: " + s1.getType().toString() +
-                    " on " + s1.getDateTime() + " for price: " + s1.getPrice());
+    /**
+     * Registers an already charged client to a session and credits the gym.
+     */
+    private static void book(Client c1, Session s1, int price, Secretary secretary) {
+        enroll(c1, s1, price, secretary);
+        secretary.addToBalanceGym(price);
+    }
+
+    /**
+     * Registers an already charged client to a session, leaving the gym's credit to the caller.
+     */
+    private static void enroll(Client c1, Session s1, int price, Secretary secretary) {
+        s1.registerClient(c1);
+        secretary.gym.enrollments.add(c1, s1);
+        secretary.gym.actionsHistory.add(new SessionBooked(c1.getId(), c1.getName(), s1.getType(), s1.getDateTime(), price));
+    }
+
+    /**
+     * Records one failed registration event per failed check, in the order the checks are made.
+     */
+    private static void recordFailures(Session s1, int failed, Secretary secretary) {
+        for (RegistrationFailed.Reason reason : RegistrationFailed.Reason.values()) {
+            if ((failed & failureBit(reason)) != 0) {
+                secretary.gym.actionsHistory.add(reason == RegistrationFailed.Reason.AGE
+                        ? RegistrationFailed.age(s1.getForum()) : RegistrationFailed.of(reason));
+            }
         }
     }
 
     /**
      * Unregisters a client from the gym and removes them from all sessions they are enrolled in.
+     * The freed seats are given to the clients on the sessions' waitlists.
      *
      * @param c2 the client to unregister
      * @param secretary the secretary managing the gym operations
      * @throws ClientNotRegisteredException if the client is not registered in the gym
      */
     public static void unregisterClient(Client c2, Secretary secretary) throws ClientNotRegisteredException {
-        if (!secretary.gym.clients.contains(c2)) {
-            throw new ClientNotRegisteredException("Error: Registration is required before attempting to unregister");
+        unregisterClient(c2, secretary, true);
+    }
+
+    /**
+     * Unregisters a client from the gym and removes them from all sessions they are enrolled in.
+     *
+     * @param c2 the client to unregister
+     * @param secretary the secretary managing the gym operations
+     * @param promote whether to give the freed seats to waiting clients; false when replaying the write-ahead log,
+     *                which has the promotions as records of their own
+     * @throws ClientNotRegisteredException if the client is not registered in the gym
+     */
+    static void unregisterClient(Client c2, Secretary secretary, boolean promote) throws ClientNotRegisteredException {
+        WriteAheadLog wal = secretary.gym.writeAheadLog;
+        long logged = 0;
+        // a snapshot holds the gym's monitor while it delivers the notifications sent so far, so promoting the
+        // clients and notifying them under it keeps a snapshot from falling between the two
+        synchronized (secretary.gym) {
+            // the clients booked from each session's waitlist, notified once the locks are released
+            List<Session> promotedTo = new ArrayList<>();
+            List<List<Client>> promotedClients = new ArrayList<>();
+            Lock lock = secretary.gym.clientsLock.writeLock();
+            lock.lock();
+            try {
+                if (secretary.gym.clients.remove(c2.getId()) == null) {
+                    throw new ClientNotRegisteredException("Error: Registration is required before attempting to unregister");
+                }
+                if (wal != null) {
+                    logged = wal.logUnregisterClient(c2);
+                }
+                // recorded before the waitlist promotions the freed seats lead to
+                secretary.gym.actionsHistory.add(new ClientUnregistered(c2.getId(), c2.getName()));
+                secretary.gym.waitlist.dropStarted(secretary.gym.clock.now());
+                for (int id : secretary.gym.enrollments.removeAll(c2)) {
+                    Session s2 = secretary.gym.sessions.get(id);
+                    Lock sessionLock = secretary.gym.sessionLocks.get(s2);
+                    sessionLock.lock();
+                    try {
+                        if (s2.unregisterClient(c2) && promote) {
+                            List<Client> promoted = new ArrayList<>();
+                            long position = promote(s2, secretary, wal, promoted);
+                            if (position != 0) {
+                                logged = position;
+                            }
+                            if (!promoted.isEmpty()) {
+                                promotedTo.add(s2);
+                                promotedClients.add(promoted);
+                            }
+                        }
+                    } finally {
+                        sessionLock.unlock();
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            // sending can block when delivery falls behind, so it must not hold up bookings
+            for (int i = 0; i < promotedTo.size(); i++) {
+                String message = promotionMessage(promotedTo.get(i));
+                for (Client c1 : promotedClients.get(i)) {
+                    secretary.gym.notifications.send(c1, message);
+                }
+            }
         }
-        secretary.gym.clients.remove(c2);
-        for (int i = 0; i < c2.getSessions().size(); i++) {
-            Session s2 = c2.getSessions().get(i);
-            s2.getParticipants().remove(c2);
+        if (wal != null) {
+            wal.awaitDurable(logged);
         }
-        secretary.gym.actionsHistory.add("Unregistered client: " + c2.getName());
     }
-}
 
+    /**
+     * Builds the notification a client booked from a session's waitlist receives.
+     *
+     * @param s1 the session
+     * @return the notification
+     */
+    private static String promotionMessage(Session s1) {
+        return "A spot opened up: you are now registered to the " + s1.getType()
+                + " session on " + s1.getDateTime().format(Session.DATE_TIME_FORMAT);
+    }
+}
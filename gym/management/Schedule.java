@@ -0,0 +1,90 @@
+package gym.management;
+
+import gym.management.Sessions.Session;
+import gym.util.IntLinkedMap;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Keeps the sessions of each instructor sorted by start time, so a new session is checked against the instructor's
+ * timetable in O(log n) instead of against every session in the gym. Timetables are keyed by instructor ID, so an
+ * instructor restored from a snapshot or a log finds the timetable of the same person.
+ * <p>
+ * The sessions of one instructor never overlap, so only the session starting last before a new one and the session
+ * starting first after it can overlap it. Not thread-safe: the gym only uses it while holding the lock on its sessions.
+ */
+class Schedule {
+    private final IntLinkedMap<NavigableMap<LocalDateTime, Session>> timetables = new IntLinkedMap<>();
+
+    /**
+     * Finds a session of the same instructor that is an exact duplicate of a new session.
+     *
+     * @param session the new session
+     * @return the scheduled session equal to it, or null if there is none
+     */
+    Session findDuplicate(Session session) {
+        NavigableMap<LocalDateTime, Session> timetable = timetables.get(session.getInstructor().getId());
+        if (timetable == null) {
+            return null;
+        }
+        Session scheduled = timetable.get(session.getDateTime());
+        return session.equals(scheduled) ? scheduled : null;
+    }
+
+    /**
+     * Finds a session of the same instructor that takes place at the same time as a new session.
+     *
+     * @param session the new session
+     * @return a scheduled session overlapping it, or null if the instructor is free
+     */
+    Session findConflict(Session session) {
+        NavigableMap<LocalDateTime, Session> timetable = timetables.get(session.getInstructor().getId());
+        if (timetable == null) {
+            return null;
+        }
+        LocalDateTime start = session.getDateTime();
+        Map.Entry<LocalDateTime, Session> before = timetable.floorEntry(start);
+        if (before != null && (before.getKey().equals(start) || end(before.getValue()).isAfter(start))) {
+            return before.getValue();
+        }
+        Map.Entry<LocalDateTime, Session> after = timetable.higherEntry(start);
+        if (after != null && after.getKey().isBefore(end(session))) {
+            return after.getValue();
+        }
+        return null;
+    }
+
+    /**
+     * Adds a session to its instructor's timetable. The session must not overlap the instructor's other sessions.
+     *
+     * @param session the session to add
+     */
+    void add(Session session) {
+        int id = session.getInstructor().getId();
+        NavigableMap<LocalDateTime, Session> timetable = timetables.get(id);
+        if (timetable == null) {
+            timetable = new TreeMap<>();
+            timetables.put(id, timetable);
+        }
+        timetable.put(session.getDateTime(), session);
+    }
+
+    /**
+     * Adds a session that was scheduled before conflicts were checked, e.g. when loading a saved gym.
+     * Of several overlapping sessions, only the first one is kept in the timetable.
+     *
+     * @param session the session to add
+     */
+    void load(Session session) {
+        if (session.getInstructor() != null && findConflict(session) == null) {
+            add(session);
+        }
+    }
+
+    private static LocalDateTime end(Session session) {
+        return session.getDateTime().plusMinutes(session.getDurationMinutes());
+    }
+}
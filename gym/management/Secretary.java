@@ -5,10 +5,20 @@ import gym.customers.Client;
 import gym.customers.Instructor;
 import gym.customers.Person;
 import gym.management.Sessions.*;
+import gym.management.events.*;
+import gym.util.DateCodec;
 
+import java.io.IOException;
+import java.io.Reader;
 import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Represents a Secretary responsible for managing gym operations, including client registration, hiring instructors,
@@ -17,7 +27,7 @@ import java.util.ArrayList;
  */
 public class Secretary extends Person implements Subject {
     private int salary;
-    private boolean active;
+    private volatile boolean active;
     protected Gym gym;
 
     /**
@@ -28,7 +38,7 @@ public class Secretary extends Person implements Subject {
      * @param gym the gym the secretary is associated with
      */
     public Secretary(Person p,int salary,Gym gym) {
-        super(p.getName(),p.getBalance(),p.getGender(),p.getBirthDate().toString(), p.getId());
+        super(p.getName(),p.getBalance(),p.getGender(),p.getBirthDate(), p.getId());
         this.salary = salary;
         this.active = true;
         this.gym = gym;
@@ -39,8 +49,8 @@ public class Secretary extends Person implements Subject {
      *
      * @return the gym's balance
      */
-    public int getBalanceGym(){
-        return gym.balanceGym;
+    public long getBalanceGym(){
+        return gym.getBalanceGym();
     }
 
     /**
@@ -120,8 +130,18 @@ public class Secretary extends Person implements Subject {
             throw new NullPointerException("Error: Former secretaries are not permitted to perform actions");
         }
         Instructor pI=new Instructor(p4,i,sessionTypes);
-        gym.instructors.add(pI);
-        gym.actionsHistory.add("Hired new instructor: "+pI.getName()+" with salary per hour: "+ pI.getSalary());
+        WriteAheadLog wal = gym.writeAheadLog;
+        long logged = 0;
+        synchronized (gym.instructors) {
+            gym.instructors.add(pI);
+            if (wal != null) {
+                logged = wal.logHireInstructor(pI);
+            }
+            gym.actionsHistory.add(new InstructorHired(pI.getId(), pI.getName(), pI.getSalary()));
+        }
+        if (wal != null) {
+            wal.awaitDurable(logged);
+        }
         return pI;
     }
 
@@ -132,8 +152,9 @@ public class Secretary extends Person implements Subject {
      * @param s the date of the session
      * @param forumType the forum type of the session
      * @param i2 the instructor for the session
-     * @return the created session
+     * @return the created session, or the existing one if the instructor already conducts the same session at that time
      * @throws InstructorNotQualifiedException if the instructor is not qualified to teach the session type
+     * @throws SessionConflictException if the instructor already conducts another session at that time
      */
     public Session addSession(SessionType sessionType, String s, ForumType forumType, Instructor i2)throws InstructorNotQualifiedException {
         if (!active) {
@@ -143,19 +164,77 @@ public class Secretary extends Person implements Subject {
             throw new InstructorNotQualifiedException("Error: Instructor is not qualified to conduct this session type.");
         }
         Session ss = SessionFactory.createSession(sessionType, i2, s, forumType);
-        if (gym.sessions.contains(ss)) {
-            for (Session se : gym.sessions) {
-                if (s.equals(ss)) {
-                    return se;
-                }
+        WriteAheadLog wal = gym.writeAheadLog;
+        long logged = 0;
+        synchronized (gym.sessions) {
+            Session duplicate = gym.schedule.findDuplicate(ss);
+            if (duplicate != null) {
+                return duplicate;
+            }
+            if (gym.schedule.findConflict(ss) != null) {
+                throw new SessionConflictException("Error: Instructor is already conducting a session at this time.");
+            }
+            gym.schedule.add(ss);
+            ss.setId(gym.sessions.size());
+            gym.sessions.add(ss);
+            gym.sessionsByDate.computeIfAbsent(ss.getDateTime().toLocalDate(), d -> new CopyOnWriteArrayList<>()).add(ss);
+            i2.addSession(ss);
+            gym.payroll.addSession(i2, ss.getDateTime().toLocalDate());
+            if (wal != null) {
+                logged = wal.logAddSession(ss);
             }
+            gym.actionsHistory.add(new SessionCreated(sessionType, ss.getDateTime(), i2.getId(), i2.getName()));
+        }
+        if (wal != null) {
+            wal.awaitDurable(logged);
         }
-        gym.sessions.add(ss);
-        i2.addSession(ss);
-        gym.actionsHistory.add("Created new session: " + sessionType + " on " + ss.getDateTime() + " with instructor: " + i2.getName());
         return ss;
     }
 
+    /**
+     * Registers clients in bulk from CSV rows of {@code name,balance,gender,birthDate[,id]}.
+     * Rows that fail the usual registration checks are reported instead of stopping the import.
+     *
+     * @param in the CSV text
+     * @return the number of registered clients and the rejected rows
+     * @throws IOException if the text cannot be read
+     */
+    public ImportResult importClients(Reader in) throws IOException {
+        if (!active) {
+            throw new NullPointerException("Error: Former secretaries are not permitted to perform actions");
+        }
+        return GymImporter.importClients(in, this);
+    }
+
+    /**
+     * Hires instructors in bulk from CSV rows of {@code name,balance,gender,birthDate,salary,sessionTypes[,id]},
+     * with the session types separated by semicolons.
+     *
+     * @param in the CSV text
+     * @return the number of hired instructors and the rejected rows
+     * @throws IOException if the text cannot be read
+     */
+    public ImportResult importInstructors(Reader in) throws IOException {
+        if (!active) {
+            throw new NullPointerException("Error: Former secretaries are not permitted to perform actions");
+        }
+        return GymImporter.importInstructors(in, this);
+    }
+
+    /**
+     * Adds sessions in bulk from CSV rows of {@code type,dateTime,forum,instructorId}.
+     *
+     * @param in the CSV text
+     * @return the number of added sessions and the rejected rows
+     * @throws IOException if the text cannot be read
+     */
+    public ImportResult importSessions(Reader in) throws IOException {
+        if (!active) {
+            throw new NullPointerException("Error: Former secretaries are not permitted to perform actions");
+        }
+        return GymImporter.importSessions(in, this);
+    }
+
     /**
      * Registers a client to a session.
      *
@@ -172,22 +251,87 @@ public class Secretary extends Person implements Subject {
     }
 
     /**
-     * Pays salaries to the secretary and all instructors based on their sessions.
+     * Registers a client for a session, reporting the outcome instead of throwing when the booking is refused,
+     * e.g. for front desks that turn many clients away at peak times.
+     *
+     * @param c the client to register
+     * @param s the session to register the client in
+     * @return the outcome of the booking as {@link BookingResult} flags
+     */
+    public int tryRegisterClientToLesson(Client c, Session s) {
+        if (!active) {
+            throw new NullPointerException("Error: Former secretaries are not permitted to perform actions");
+        }
+        return RegisterClientAction.tryRegisterClientToLesson(c, s, this);
+    }
+
+    /**
+     * Registers many clients to sessions in one call, e.g. a corporate group. Unlike
+     * {@link #registerClientToLesson}, a failed request does not stop the others: every request gets its own result.
+     *
+     * @param requests the bookings to make
+     * @return the outcome of each request, in request order, as {@link BookingResult} flags
+     */
+    public int[] registerClientsToLessons(Collection<BookingRequest> requests) {
+        if (!active) {
+            throw new NullPointerException("Error: Former secretaries are not permitted to perform actions");
+        }
+        return RegisterClientAction.registerClientsToLessons(requests, this);
+    }
+
+    /**
+     * Pays the secretary's salary, and pays every instructor for the sessions they have not been paid for yet.
+     * Sessions paid by an earlier run are not paid again.
      */
     public void paySalaries() {
         if(!active) {
             throw new NullPointerException("Error: Former secretaries are not permitted to perform actions");
         }
-        super.getBalance().addBalance(salary);
-        reduceBalanceGym(salary);
-        for (Instructor instructor : gym.instructors) {
-            int sessionCount = instructor.getSessions().size();
-            int perSessionSalary = instructor.getSalary();
-            int totalSalary = sessionCount * perSessionSalary;
-            instructor.getBalance().addBalance(totalSalary);
-            reduceBalanceGym(totalSalary);
+        WriteAheadLog wal = gym.writeAheadLog;
+        long logged = 0;
+        long paid;
+        // ordered with new sessions, so a replayed log pays for the same sessions
+        synchronized (gym.sessions) {
+            paid = gym.payroll.payAll();
+            super.getBalance().addBalance(salary);
+            paid += salary;
+            // the total of a payroll run may not fit in an int
+            gym.balanceGym.add(-paid);
+            if (wal != null) {
+                logged = wal.logPaySalaries(null, null);
+            }
+            gym.actionsHistory.add(new SalaryPaid(paid));
+        }
+        if (wal != null) {
+            wal.awaitDurable(logged);
+        }
+    }
+
+    /**
+     * Pays every instructor for the unpaid sessions taking place in a pay period.
+     * The secretary's salary is not tied to sessions and is only paid by {@link #paySalaries()}.
+     *
+     * @param from the first day of the pay period
+     * @param to the last day of the pay period, inclusive
+     */
+    public void paySalaries(LocalDate from, LocalDate to) {
+        if(!active) {
+            throw new NullPointerException("Error: Former secretaries are not permitted to perform actions");
+        }
+        WriteAheadLog wal = gym.writeAheadLog;
+        long logged = 0;
+        long paid;
+        synchronized (gym.sessions) {
+            paid = gym.payroll.pay(from, to);
+            gym.balanceGym.add(-paid);
+            if (wal != null) {
+                logged = wal.logPaySalaries(from, to);
+            }
+            gym.actionsHistory.add(new SalaryPaid(paid));
+        }
+        if (wal != null) {
+            wal.awaitDurable(logged);
         }
-        gym.actionsHistory.add("Salaries have been paid to all employees");
     }
 
     /**
@@ -197,13 +341,12 @@ public class Secretary extends Person implements Subject {
         if(!active) {
             throw new NullPointerException("Error: Former secretaries are not permitted to perform actions");
         }
-        for(String s: gym.actionsHistory){
-            System.out.println(s);
-        }
+        gym.actionsHistory.print(0, System.out);
     }
 
     /**
      * Sends a notification to all participants in a session.
+     * The message is delivered in the background; use {@link #flush()} to wait for delivery.
      *
      * @param s4 the session for which participants will be notified
      * @param s the notification message
@@ -213,14 +356,33 @@ public class Secretary extends Person implements Subject {
         if (!active) {
             throw new NullPointerException("Error: Former secretaries are not permitted to perform actions");
         }
-        for(Client c : s4.getParticipants()){
-            c.update(s);
+        WriteAheadLog wal = gym.writeAheadLog;
+        long logged = 0;
+        // a snapshot delivers the notifications sent so far while holding the gym's monitor
+        synchronized (gym) {
+            Client[] recipients;
+            Lock sessionLock = gym.sessionLocks.get(s4);
+            sessionLock.lock();
+            try {
+                recipients = s4.getParticipants().toArray(new Client[0]);
+                if (wal != null) {
+                    logged = wal.logNotifySession(s4, s);
+                }
+                gym.actionsHistory.add(new SessionNotified(s4.getType(), s4.getDateTime(), s));
+            } finally {
+                sessionLock.unlock();
+            }
+            broadcast(s, recipients);
+        }
+        if (wal != null) {
+            wal.awaitDurable(logged);
         }
-        gym.actionsHistory.add("A message was sent to everyone registered for session " + s4.getType() + " on " + s4.getDateTime().toString() + " : " + s);
     }
 
     /**
      * Sends a notification to all participants registered for sessions on a specific date.
+     * A client registered for several sessions on that date receives the message once.
+     * The message is delivered in the background; use {@link #flush()} to wait for delivery.
      *
      * @param date the date of the sessions in the format dd-MM-yyyy
      * @param message the notification message
@@ -230,24 +392,61 @@ public class Secretary extends Person implements Subject {
         if (!active) {
             throw new NullPointerException("Error: Former secretaries are not permitted to perform actions");
         }
-        DateTimeFormatter inputFormatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-        LocalDate targetDate = LocalDate.parse(date, inputFormatter);
-        for (Session session : gym.sessions) {
-            // Convert session's datetime to LocalDate (ignoring time part)
-            LocalDate sessionDate = session.getDateTime().toLocalDate();
-            if (sessionDate.equals(targetDate)) {  // Compare only the date part
-                for(Client c : session.getParticipants()){
-                    if(!c.getNotifications().contains(message)) {
-                        c.update(message);
+        notify(DateCodec.parseDate(date), message);
+    }
+
+    /**
+     * Sends a notification to all participants registered for sessions on a day.
+     *
+     * @param targetDate the day of the sessions
+     * @param message the notification message
+     */
+    void notify(LocalDate targetDate, String message) {
+        WriteAheadLog wal = gym.writeAheadLog;
+        long logged = 0;
+        synchronized (gym) {
+            Client[] recipients;
+            // the write lock keeps bookings out of all the day's sessions at once, so the log record has one place
+            // among them
+            Lock clientsLock = gym.clientsLock.writeLock();
+            clientsLock.lock();
+            try {
+                List<Session> daySessions = gym.sessionsByDate.get(targetDate);
+                List<Client> dayClients = new ArrayList<>();
+                if (daySessions != null) {
+                    Set<Client> notified = Collections.newSetFromMap(new IdentityHashMap<>());
+                    for (Session session : daySessions) {
+                        Lock sessionLock = gym.sessionLocks.get(session);
+                        sessionLock.lock();
+                        try {
+                            for (Client c : session.getParticipants()) {
+                                if (notified.add(c)) {
+                                    dayClients.add(c);
+                                }
+                            }
+                        } finally {
+                            sessionLock.unlock();
+                        }
                     }
                 }
+                recipients = dayClients.toArray(new Client[0]);
+                if (wal != null) {
+                    logged = wal.logNotifyDate(targetDate, message);
+                }
+                gym.actionsHistory.add(new DateNotified(targetDate, message));
+            } finally {
+                clientsLock.unlock();
             }
+            broadcast(message, recipients);
+        }
+        if (wal != null) {
+            wal.awaitDurable(logged);
         }
-        gym.actionsHistory.add("A message was sent to everyone registered for a session on "+ targetDate +" : "+message);
     }
 
     /**
      * Sends a notification to all clients in the gym.
+     * The message is delivered in the background; use {@link #flush()} to wait for delivery.
      *
      * @param s the notification message
      */
@@ -256,10 +455,51 @@ public class Secretary extends Person implements Subject {
         if (!active) {
             throw new NullPointerException("Error: Former secretaries are not permitted to perform actions");
         }
-        for (Client c : gym.clients) {
-            c.update(s);
+        WriteAheadLog wal = gym.writeAheadLog;
+        long logged = 0;
+        synchronized (gym) {
+            Client[] recipients;
+            Lock clientsLock = gym.clientsLock.readLock();
+            clientsLock.lock();
+            try {
+                recipients = gym.clients.values().toArray(new Client[0]);
+                if (wal != null) {
+                    logged = wal.logNotifyClients(s);
+                }
+                gym.actionsHistory.add(new ClientsNotified(s));
+            } finally {
+                clientsLock.unlock();
+            }
+            broadcast(s, recipients);
+        }
+        if (wal != null) {
+            wal.awaitDurable(logged);
+        }
+    }
+
+    /**
+     * Hands a message to the dispatcher for each recipient. Handing it over may wait for room in a lane, so it is
+     * called after the clients' and sessions' locks are released; the gym's monitor stays held so a snapshot
+     * delivers the message along with the history event recorded for it.
+     *
+     * @param message the notification message
+     * @param recipients the clients to notify
+     */
+    private void broadcast(String message, Client[] recipients) {
+        NotificationDispatcher.Broadcast broadcast = gym.notifications.broadcast(message);
+        for (Client c : recipients) {
+            broadcast.add(c);
         }
-        gym.actionsHistory.add("A message was sent to all gym clients: " + s);
+        broadcast.send();
+    }
+
+    /**
+     * Waits until every notification sent so far has been delivered.
+     * Former secretaries may still call this, since it does not change the gym.
+     */
+    @Override
+    public void flush() {
+        gym.notifications.flush();
     }
 
     /**
@@ -269,15 +509,21 @@ public class Secretary extends Person implements Subject {
      */
     @Override
     public String toString() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy");
-        return "ID: " + super.getId() +
-                " | Name: " + super.getName() +
-                " | Gender: " + super.getGender().toString() +
-                " | Birthday: " + super.getBirthDate().format(formatter) +
-                " | Age: " + super.getAge() +
-                " | Balance: " + super.getBalanceInt() +
-                " | Role: Secretary" +
-                " | Salary per Month: " + salary;
+        return describeTo(new StringBuilder(), gym.clock.today()).toString();
+    }
+
+    /**
+     * Appends the details of the secretary, including their role and salary, to a builder.
+     *
+     * @param sb the builder to append to
+     * @param today the day to calculate the age on
+     * @return the same builder
+     */
+    @Override
+    public StringBuilder describeTo(StringBuilder sb, LocalDate today) {
+        return super.describeTo(sb, today)
+                .append(" | Role: Secretary")
+                .append(" | Salary per Month: ").append(salary);
     }
 
 }
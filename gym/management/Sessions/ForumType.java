@@ -1,8 +1,25 @@
 package gym.management.Sessions;
 
+import gym.customers.Client;
+
 public enum ForumType {
-    All,
-    Female,
-    Seniors,
-    Male;
+    All(0),
+    Female(Client.FEMALE),
+    Seniors(Client.SENIOR),
+    Male(Client.MALE);
+
+    private final int requiredMask;
+
+    ForumType(int requiredMask) {
+        this.requiredMask = requiredMask;
+    }
+
+    /**
+     * Retrieves the eligibility bits a client must have to join sessions of this forum.
+     *
+     * @return the required bits, see {@link Client#getEligibility}
+     */
+    public int getRequiredMask() {
+        return requiredMask;
+    }
 }
@@ -2,32 +2,34 @@ package gym.management.Sessions;
 
 import gym.customers.Client;
 import gym.customers.Instructor;
+import gym.util.DateCodec;
+import gym.util.IntLinkedMap;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Collection;
 import java.util.Objects;
 
 /**
  * Represents a session conducted in a gym. Each session is defined by its type,
- * instructor, participants, date and time, forum type, maximum participants, and price.
+ * instructor, participants, date and time and forum type. The maximum participants, duration and price come from
+ * the settings of its type in {@link SessionTypeRegistry}, which all sessions of the type share.
  */
 public class Session {
 
+    /** The format session dates are parsed from and displayed in. */
+    public static final DateTimeFormatter DATE_TIME_FORMAT = DateCodec.DATE_TIME_FORMAT;
+
     /** The type of the session (e.g., Yoga, Pilates). */
     protected SessionType type;
 
     /** The instructor conducting the session. */
     protected Instructor instructor;
 
-    /** List of clients registered as participants in the session. */
-    protected List<Client> participants;
-
-    /** The maximum number of participants allowed in the session. */
-    protected int maxParticipants;
+    /** Clients registered as participants in the session, keyed by ID and kept in registration order. */
+    protected IntLinkedMap<Client> participants;
 
-    /** The price for attending the session. */
-    protected int price;
+    /** The capacity, duration and price shared by all sessions of this type. */
+    protected final SessionTypeInfo info;
 
     /** The date and time when the session will take place. */
     protected LocalDateTime dateTime;
@@ -35,6 +37,9 @@ public class Session {
     /** The forum type of the session (e.g., group or private). */
     protected ForumType forum;
 
+    /** The number of the session in its gym, in the order sessions were added, or -1 if it was not added to a gym. */
+    protected int id = -1;
+
     /**
      * Constructs a new session.
      *
@@ -44,20 +49,52 @@ public class Session {
      * @param forum       the forum type of the session
      */
     public Session(SessionType type, Instructor instructor, String dateTime, ForumType forum) {
+        this(type, instructor, DateCodec.parseDateTime(dateTime), forum);
+    }
+
+    /**
+     * Constructs a new session at an already parsed date and time.
+     *
+     * @param type        the type of the session
+     * @param instructor  the instructor conducting the session
+     * @param dateTime    the date and time of the session
+     * @param forum       the forum type of the session
+     */
+    public Session(SessionType type, Instructor instructor, LocalDateTime dateTime, ForumType forum) {
         this.type = type;
+        this.info = SessionTypeRegistry.get(type);
         this.instructor = instructor;
-        this.participants = new ArrayList<>();
-        this.dateTime = LocalDateTime.parse(dateTime, DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm"));
+        this.participants = new IntLinkedMap<>();
+        this.dateTime = dateTime;
         this.forum = forum;
     }
 
     /**
-     * Gets the list of participants registered for the session.
+     * Gets the participants registered for the session, in registration order.
+     *
+     * @return a live view of the clients participating in the session
+     */
+    public Collection<Client> getParticipants() {
+        return participants.values();
+    }
+
+    /**
+     * Gets the number of participants registered for the session.
      *
-     * @return a list of clients participating in the session
+     * @return the number of participants
      */
-    public List<Client> getParticipants() {
-        return participants;
+    public int getParticipantCount() {
+        return participants.size();
+    }
+
+    /**
+     * Checks if a client is registered for the session.
+     *
+     * @param client the client to check
+     * @return true if the client is a participant, false otherwise
+     */
+    public boolean hasParticipant(Client client) {
+        return participants.containsKey(client.getId());
     }
 
     /**
@@ -66,7 +103,35 @@ public class Session {
      * @param client the client to register
      */
     public void registerClient(Client client) {
-        participants.add(client);
+        participants.put(client.getId(), client);
+    }
+
+    /**
+     * Removes a client from the session.
+     *
+     * @param client the client to remove
+     * @return true if the client was a participant, false otherwise
+     */
+    public boolean unregisterClient(Client client) {
+        return participants.remove(client.getId()) != null;
+    }
+
+    /**
+     * Gets the number of the session in its gym.
+     *
+     * @return the session number, or -1 if the session was not added to a gym
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Sets the number of the session in its gym. Called by the gym when the session is added.
+     *
+     * @param id the session number
+     */
+    public void setId(int id) {
+        this.id = id;
     }
 
     /**
@@ -79,12 +144,12 @@ public class Session {
     }
 
     /**
-     * Gets the price of the session.
+     * Gets the current price of the session. Bookings already made keep the price they were charged.
      *
      * @return the price of the session
      */
     public int getPrice() {
-        return price;
+        return info.getPrice();
     }
 
     /**
@@ -93,7 +158,7 @@ public class Session {
      * @return the maximum number of participants
      */
     public int getMaxParticipants() {
-        return maxParticipants;
+        return info.getMaxParticipants();
     }
 
     /**
@@ -105,6 +170,24 @@ public class Session {
         return dateTime;
     }
 
+    /**
+     * Gets the length of the session.
+     *
+     * @return the duration in minutes
+     */
+    public int getDurationMinutes() {
+        return info.getDurationMinutes();
+    }
+
+    /**
+     * Gets the settings shared by all sessions of this session's type.
+     *
+     * @return the session type settings
+     */
+    public SessionTypeInfo getTypeInfo() {
+        return info;
+    }
+
     /**
      * Gets the forum type of the session.
      *
@@ -125,6 +208,8 @@ public class Session {
 
     /**
      * Checks if this session is equal to another object.
+     * Sessions are equal if they have the same type, instructor, date and time and forum.
+     * Participants are not compared, so a session keeps its identity as clients register.
      *
      * @param o the object to compare
      * @return true if the sessions are equal, otherwise false
@@ -134,11 +219,8 @@ public class Session {
         if (this == o) return true;
         if (o == null || getClass() != o.getClass()) return false;
         Session session = (Session) o;
-        return maxParticipants == session.maxParticipants &&
-                price == session.price &&
-                type == session.type &&
+        return type == session.type &&
                 Objects.equals(instructor, session.instructor) &&
-                Objects.equals(participants, session.participants) &&
                 Objects.equals(dateTime, session.dateTime) &&
                 forum == session.forum;
     }
@@ -150,7 +232,7 @@ public class Session {
      */
     @Override
     public int hashCode() {
-        return Objects.hash(type, instructor, participants, maxParticipants, price, dateTime, forum);
+        return Objects.hash(type, instructor, dateTime, forum);
     }
 
     /**
@@ -160,11 +242,21 @@ public class Session {
      */
     @Override
     public String toString() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
-        return "Session Type: " + type.toString() +
-                " | Date: " + dateTime.format(formatter) +
-                " | Forum: " + forum.toString() +
-                " | Instructor: " + instructor.getName() +
-                " | Participants: " + participants.size() + "/" + maxParticipants;
+        return describeTo(new StringBuilder()).toString();
+    }
+
+    /**
+     * Appends the details of the session to a builder, without creating intermediate strings.
+     *
+     * @param sb the builder to append to
+     * @return the same builder
+     */
+    public StringBuilder describeTo(StringBuilder sb) {
+        sb.append("Session Type: ").append(type)
+                .append(" | Date: ");
+        DATE_TIME_FORMAT.formatTo(dateTime, sb);
+        return sb.append(" | Forum: ").append(forum)
+                .append(" | Instructor: ").append(instructor.getName())
+                .append(" | Participants: ").append(participants.size()).append("/").append(info.getMaxParticipants());
     }
 }
@@ -0,0 +1,75 @@
+package gym.management.Sessions;
+
+/**
+ * The settings shared by all sessions of one type: how many clients fit in, how long it lasts and what it costs.
+ * There is one instance per type, held by {@link SessionTypeRegistry} and referenced by every session of that type.
+ * <p>
+ * The price can change while the gym is running. A booking reads the price once and charges and records that
+ * amount, so later price changes do not affect bookings already made.
+ */
+public class SessionTypeInfo {
+    private final SessionType type;
+    private final int maxParticipants;
+    private final int durationMinutes;
+    private volatile int price;
+
+    /**
+     * Constructs the settings of a session type.
+     *
+     * @param type            the session type
+     * @param maxParticipants the maximum number of participants in a session
+     * @param durationMinutes the length of a session in minutes
+     * @param price           the price of attending a session
+     */
+    SessionTypeInfo(SessionType type, int maxParticipants, int durationMinutes, int price) {
+        this.type = type;
+        this.maxParticipants = maxParticipants;
+        this.durationMinutes = durationMinutes;
+        this.price = price;
+    }
+
+    /**
+     * Gets the session type these settings belong to.
+     *
+     * @return the session type
+     */
+    public SessionType getType() {
+        return type;
+    }
+
+    /**
+     * Gets the maximum number of participants in a session of this type.
+     *
+     * @return the capacity of a session
+     */
+    public int getMaxParticipants() {
+        return maxParticipants;
+    }
+
+    /**
+     * Gets the length of a session of this type.
+     *
+     * @return the duration in minutes
+     */
+    public int getDurationMinutes() {
+        return durationMinutes;
+    }
+
+    /**
+     * Gets the current price of attending a session of this type.
+     *
+     * @return the price
+     */
+    public int getPrice() {
+        return price;
+    }
+
+    /**
+     * Changes the price of attending a session of this type, for bookings made from now on.
+     *
+     * @param price the new price
+     */
+    void setPrice(int price) {
+        this.price = price;
+    }
+}
@@ -0,0 +1,106 @@
+package gym.management.Sessions;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Holds the settings of every session type, loaded once when the gym starts.
+ * <p>
+ * The settings are read from the file named by the {@code gym.sessionTypes} system property, or else from the
+ * {@code session-types.properties} resource next to this class. Keys have the form {@code <type>.maxParticipants},
+ * {@code <type>.durationMinutes} and {@code <type>.price}; any setting left out keeps its built-in value.
+ */
+public final class SessionTypeRegistry {
+    private static final String FILE_PROPERTY = "gym.sessionTypes";
+    private static final String RESOURCE = "session-types.properties";
+
+    private static final Map<SessionType, SessionTypeInfo> TYPES = load();
+
+    private SessionTypeRegistry() {
+    }
+
+    /**
+     * Retrieves the settings of a session type.
+     *
+     * @param type the session type
+     * @return the settings shared by all sessions of that type
+     */
+    public static SessionTypeInfo get(SessionType type) {
+        return TYPES.get(type);
+    }
+
+    /**
+     * Changes the price of a session type in every gym of the process. Sessions already scheduled charge the new
+     * price from now on; bookings already made keep the price they were charged.
+     *
+     * @param type  the session type
+     * @param price the new price
+     * @throws IllegalArgumentException if the price is negative
+     */
+    public static void setPrice(SessionType type, int price) {
+        if (price < 0) {
+            throw new IllegalArgumentException("Invalid price for " + type + ": " + price);
+        }
+        TYPES.get(type).setPrice(price);
+    }
+
+    private static Map<SessionType, SessionTypeInfo> load() {
+        Properties properties = new Properties();
+        try {
+            String file = System.getProperty(FILE_PROPERTY);
+            if (file != null) {
+                try (InputStream in = Files.newInputStream(Path.of(file))) {
+                    properties.load(in);
+                }
+            } else {
+                try (InputStream in = SessionTypeRegistry.class.getResourceAsStream(RESOURCE)) {
+                    if (in != null) {
+                        properties.load(in);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read the session type settings", e);
+        }
+        Map<SessionType, SessionTypeInfo> types = new EnumMap<>(SessionType.class);
+        put(types, properties, SessionType.Pilates, 30, 60, 60);
+        put(types, properties, SessionType.MachinePilates, 10, 60, 80);
+        put(types, properties, SessionType.ThaiBoxing, 20, 60, 100);
+        put(types, properties, SessionType.Ninja, 5, 45, 150);
+        return types;
+    }
+
+    /**
+     * Adds the settings of one type, taking each value from the properties if it is there and from the defaults otherwise.
+     */
+    private static void put(Map<SessionType, SessionTypeInfo> types, Properties properties, SessionType type,
+                            int maxParticipants, int durationMinutes, int price) {
+        types.put(type, new SessionTypeInfo(type,
+                value(properties, type, "maxParticipants", maxParticipants, 0),
+                // a session of no length could never conflict with another one starting at the same time
+                value(properties, type, "durationMinutes", durationMinutes, 1),
+                value(properties, type, "price", price, 0)));
+    }
+
+    private static int value(Properties properties, SessionType type, String name, int defaultValue, int min) {
+        String text = properties.getProperty(type + "." + name);
+        if (text == null) {
+            return defaultValue;
+        }
+        try {
+            int value = Integer.parseInt(text.trim());
+            if (value >= min) {
+                return value;
+            }
+        } catch (NumberFormatException e) {
+            // reported below
+        }
+        throw new IllegalArgumentException("Invalid " + name + " for " + type + ": " + text);
+    }
+}
@@ -6,6 +6,7 @@ public interface Subject {
     void notify(String s);
     void notify(String date, String message);
     void notify(Session s4, String s);
+    void flush();
 
 
 }
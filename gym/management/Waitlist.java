@@ -0,0 +1,112 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.management.Sessions.Session;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The clients waiting for a seat in full sessions, first come first served. Each session has its own FIFO, a linked
+ * set so a client waits at most once per session. The sets are not thread-safe: they are only read and changed
+ * inside {@code compute} calls on the session's entry in a concurrent map, which lock that entry, so each session's
+ * waitlist is locked on its own. Clients who leave the gym while waiting are skipped when their turn comes.
+ * <p>
+ * A session only has a waitlist while somebody is waiting: the list is dropped when its last client is taken from
+ * it, and when the session starts, since nobody can be booked into it any more.
+ */
+class Waitlist {
+    private final ConcurrentHashMap<Session, LinkedHashSet<Client>> lines = new ConcurrentHashMap<>();
+
+    /** The earliest start of a session with a waitlist. Only updated while holding the lock on this waitlist. */
+    private volatile LocalDateTime nextStart = LocalDateTime.MAX;
+
+    /**
+     * Adds a client to the end of a session's waitlist.
+     *
+     * @param session the full session
+     * @param client  the client waiting for a seat
+     * @return true if the client was added, false if they were already waiting
+     */
+    boolean add(Session session, Client client) {
+        boolean[] added = new boolean[1];
+        lines.compute(session, (s, line) -> {
+            if (line == null) {
+                line = new LinkedHashSet<>();
+            }
+            added[0] = line.add(client);
+            return line;
+        });
+        LocalDateTime start = session.getDateTime();
+        if (start.isBefore(nextStart)) {
+            synchronized (this) {
+                if (start.isBefore(nextStart)) {
+                    nextStart = start;
+                }
+            }
+        }
+        return added[0];
+    }
+
+    /**
+     * Removes the client who has been waiting longest for a session, and the session's waitlist if nobody is left.
+     *
+     * @param session the session
+     * @return the next client, or null if nobody is waiting
+     */
+    Client poll(Session session) {
+        Client[] next = new Client[1];
+        lines.computeIfPresent(session, (s, line) -> {
+            Iterator<Client> it = line.iterator();
+            if (it.hasNext()) {
+                next[0] = it.next();
+                it.remove();
+            }
+            return line.isEmpty() ? null : line;
+        });
+        return next[0];
+    }
+
+    /**
+     * Drops the waitlists of the sessions that have started, which bookings no longer accept. Cheap unless a session
+     * with a waitlist started since the last call, so it can be called on every change.
+     *
+     * @param now the current time
+     */
+    void dropStarted(LocalDateTime now) {
+        if (now.isBefore(nextStart)) {
+            return;
+        }
+        synchronized (this) {
+            LocalDateTime earliest = LocalDateTime.MAX;
+            for (Session session : lines.keySet()) {
+                LocalDateTime start = session.getDateTime();
+                if (start.isAfter(now)) {
+                    earliest = start.isBefore(earliest) ? start : earliest;
+                } else {
+                    lines.remove(session);
+                }
+            }
+            nextStart = earliest;
+        }
+    }
+
+    /**
+     * Retrieves the clients waiting for a session.
+     *
+     * @param session the session
+     * @return a copy of the waitlist, longest waiting first
+     */
+    List<Client> get(Session session) {
+        List<Client> copy = new ArrayList<>();
+        lines.computeIfPresent(session, (s, line) -> {
+            copy.addAll(line);
+            return line;
+        });
+        return copy;
+    }
+}
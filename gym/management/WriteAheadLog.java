@@ -0,0 +1,468 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.Instructor;
+import gym.customers.Person;
+import gym.management.Sessions.ForumType;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionType;
+import gym.util.GymClock;
+import gym.util.MappedJournal;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Makes the changes to a gym durable between snapshots. Every change made through the secretary
+ * (and every new secretary or name) is appended to a memory-mapped log before the call returns,
+ * and the log is replayed onto the last {@link GymSnapshot} after a restart.
+ * <p>
+ * Records are appended while the change still holds the lock that orders it, so the log has the same order
+ * as the gym. Forcing the log to disk happens after the lock is released and uses group commit: the first
+ * caller to wait forces everything appended so far, and every caller that arrived meanwhile is released by
+ * that single force instead of forcing on its own.
+ * <p>
+ * Registrations, new sessions, salaries, notifications, secretaries and the gym's name are replayed by calling the secretary again with the
+ * {@link GymClock} of the gym being restored fixed at the time of the record; other gyms keep their own time. Bookings and waitlist promotions are replayed from their
+ * recorded outcome, since their result can depend on the order concurrent bookings ran in.
+ * <p>
+ * The log is opt-in: a gym only writes one after {@link #recover} or {@link Gym#setWriteAheadLog}.
+ */
+public class WriteAheadLog {
+    private static final int DEFAULT_SEGMENT_SIZE = 16 * 1024 * 1024;
+
+    private static final byte SET_SECRETARY = 1;
+    private static final byte REGISTER_CLIENT = 2;
+    private static final byte UNREGISTER_CLIENT = 3;
+    private static final byte HIRE_INSTRUCTOR = 4;
+    private static final byte ADD_SESSION = 5;
+    private static final byte BOOKING = 6;
+    private static final byte PAY_SALARIES = 7;
+    private static final byte PROMOTION = 8;
+    private static final byte NOTIFY_SESSION = 9;
+    private static final byte NOTIFY_DATE = 10;
+    private static final byte NOTIFY_CLIENTS = 11;
+    private static final byte SET_NAME = 12;
+
+    private final MappedJournal journal;
+
+    /** The clock of the gym the log is attached to, used to timestamp the records. */
+    private volatile GymClock clock = GymClock.system();
+
+    /** The position up to which the log is known to be on disk. Guarded by this. */
+    private long durable;
+
+    /** Whether a thread is currently forcing the log. Guarded by this. */
+    private boolean forcing;
+
+    /**
+     * Opens the log stored in a directory, creating it if needed.
+     *
+     * @param directory the directory holding the log segments
+     */
+    public WriteAheadLog(Path directory) {
+        this(new MappedJournal(directory, Integer.getInteger("gym.wal.segmentSize", DEFAULT_SEGMENT_SIZE)));
+    }
+
+    /**
+     * Constructs a log on top of a journal.
+     *
+     * @param journal the journal storing the records
+     */
+    public WriteAheadLog(MappedJournal journal) {
+        this.journal = journal;
+        this.durable = journal.getWritePosition();
+    }
+
+    /**
+     * Sets the clock the records are timestamped with. Called by the gym the log is attached to.
+     *
+     * @param clock the gym's clock
+     */
+    void setClock(GymClock clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Restores a gym after a restart and starts logging its changes: loads the snapshot, if there is one,
+     * replays the log records written after it and attaches the log to the gym. Replaying records the actions
+     * in the gym's history again, notifications included, so a history reopened from {@code gym.journal.dir} is
+     * first cut back to the snapshot, or emptied if there is none.
+     *
+     * @param gym      the empty gym to restore
+     * @param snapshot the snapshot file, which may not exist yet
+     * @param logDir   the directory holding the log
+     * @return the log, now attached to the gym
+     * @throws IOException if the snapshot cannot be read
+     */
+    public static WriteAheadLog recover(Gym gym, Path snapshot, Path logDir) throws IOException {
+        long position;
+        if (Files.exists(snapshot)) {
+            position = GymSnapshot.load(snapshot, gym);
+        } else {
+            position = 0;
+            gym.actionsHistory.getJournal().truncate(0);
+        }
+        WriteAheadLog log = new WriteAheadLog(logDir);
+        log.replay(gym, position);
+        gym.setWriteAheadLog(log);
+        return log;
+    }
+
+    /**
+     * Saves a snapshot of the gym and deletes the log segments it makes unnecessary.
+     *
+     * @param gym      the gym the log belongs to
+     * @param snapshot the snapshot file to write
+     * @throws IOException if the snapshot cannot be written
+     */
+    public void checkpoint(Gym gym, Path snapshot) throws IOException {
+        long position = GymSnapshot.save(gym, snapshot);
+        journal.dropBefore(position);
+    }
+
+    /**
+     * Forces the records appended so far to disk and releases the log's segments.
+     * The log must be detached from its gym first; appending afterwards fails.
+     */
+    public void close() {
+        awaitDurable(journal.getWritePosition());
+        journal.close();
+    }
+
+    /**
+     * Retrieves the position right after the last record, which a snapshot taken now includes.
+     *
+     * @return the current end of the log
+     */
+    public long getPosition() {
+        return journal.getWritePosition();
+    }
+
+    /**
+     * Logs a new secretary.
+     *
+     * @param secretary the secretary
+     * @return the position to wait for with {@link #awaitDurable}
+     */
+    long logSetSecretary(Secretary secretary) {
+        return appendPerson(SET_SECRETARY, secretary, secretary.getSalary(), secretary.getName());
+    }
+
+    /**
+     * Logs a new name for the gym.
+     *
+     * @param name the name
+     * @return the position to wait for with {@link #awaitDurable}
+     */
+    long logSetName(String name) {
+        return append(SET_NAME, 0, 0, 0, 0, name);
+    }
+
+    /**
+     * Logs a client registered in the gym.
+     *
+     * @param client the client
+     * @return the position to wait for with {@link #awaitDurable}
+     */
+    long logRegisterClient(Client client) {
+        return appendPerson(REGISTER_CLIENT, client, 0, client.getName());
+    }
+
+    /**
+     * Logs a client unregistered from the gym.
+     *
+     * @param client the client
+     * @return the position to wait for with {@link #awaitDurable}
+     */
+    long logUnregisterClient(Client client) {
+        return append(UNREGISTER_CLIENT, client.getId(), 0, 0, 0, null);
+    }
+
+    /**
+     * Logs a hired instructor.
+     *
+     * @param instructor the instructor
+     * @return the position to wait for with {@link #awaitDurable}
+     */
+    long logHireInstructor(Instructor instructor) {
+        // the session types in the instructor's order, which the report shows: the count in two chars and one
+        // ordinal per type, followed by the name
+        List<SessionType> expertise = instructor.getExpertise();
+        StringBuilder text = new StringBuilder(2 + expertise.size() + instructor.getName().length());
+        text.append((char) (expertise.size() >>> 16)).append((char) expertise.size());
+        for (SessionType type : expertise) {
+            text.append((char) type.ordinal());
+        }
+        text.append(instructor.getName());
+        return appendPerson(HIRE_INSTRUCTOR, instructor, instructor.getSalary(), text);
+    }
+
+    /**
+     * Logs a session added to the gym.
+     *
+     * @param session the session
+     * @return the position to wait for with {@link #awaitDurable}
+     */
+    long logAddSession(Session session) {
+        return append(ADD_SESSION, session.getInstructor().getId(), session.getType().ordinal() << 8 | session.getForum().ordinal(),
+                session.getDateTime().toEpochSecond(ZoneOffset.UTC), 0, null);
+    }
+
+    /**
+     * Logs the outcome of a booking.
+     *
+     * @param client  the client
+     * @param session the session
+     * @param price   the price the client was charged, or would have been
+     * @param failed  the failed checks, see {@link RegisterClientAction#failureBit}, or 0 if the client was booked
+     * @return the position to wait for with {@link #awaitDurable}
+     */
+    long logBooking(Client client, Session session, int price, int failed) {
+        return append(BOOKING, client.getId(), session.getId(), price, failed, null);
+    }
+
+    /**
+     * Logs the outcome of booking a client from a session's waitlist.
+     *
+     * @param client  the client taken from the waitlist
+     * @param session the session
+     * @param price   the price the client was charged, or would have been
+     * @param failed  the failed checks, see {@link RegisterClientAction#failureBit}, or 0 if the client was booked
+     * @return the position to wait for with {@link #awaitDurable}
+     */
+    long logPromotion(Client client, Session session, int price, int failed) {
+        return append(PROMOTION, client.getId(), session.getId(), price, failed, null);
+    }
+
+    /**
+     * Logs a notification to the participants of a session.
+     *
+     * @param session the session
+     * @param message the notification message
+     * @return the position to wait for with {@link #awaitDurable}
+     */
+    long logNotifySession(Session session, String message) {
+        return append(NOTIFY_SESSION, 0, session.getId(), 0, 0, message);
+    }
+
+    /**
+     * Logs a notification to the participants of the sessions on a day.
+     *
+     * @param date    the day of the sessions
+     * @param message the notification message
+     * @return the position to wait for with {@link #awaitDurable}
+     */
+    long logNotifyDate(LocalDate date, String message) {
+        return append(NOTIFY_DATE, 0, 0, date.toEpochDay(), 0, message);
+    }
+
+    /**
+     * Logs a notification to all clients of the gym.
+     *
+     * @param message the notification message
+     * @return the position to wait for with {@link #awaitDurable}
+     */
+    long logNotifyClients(String message) {
+        return append(NOTIFY_CLIENTS, 0, 0, 0, 0, message);
+    }
+
+    /**
+     * Logs a payroll run.
+     *
+     * @param from the first day paid, or null for all unpaid sessions
+     * @param to   the last day paid, or null for all unpaid sessions
+     * @return the position to wait for with {@link #awaitDurable}
+     */
+    long logPaySalaries(LocalDate from, LocalDate to) {
+        if (from == null) {
+            return append(PAY_SALARIES, 0, 0, 0, 0, null);
+        }
+        return append(PAY_SALARIES, 1, 0, from.toEpochDay(), to.toEpochDay(), null);
+    }
+
+    /**
+     * Appends the fields of a person: the ID, the balance and the birth date with the gender, and a text holding
+     * the name.
+     */
+    private long appendPerson(byte code, Person p, int id2, CharSequence text) {
+        long birth = p.getBirthDate().toEpochDay() << 32 | (long) p.getGender().ordinal() << 24;
+        return append(code, p.getId(), id2, p.getBalanceLong(), birth, text);
+    }
+
+    private long append(byte code, int id1, int id2, long value1, long value2, CharSequence text) {
+        synchronized (journal) {
+            journal.append(code, clock.millis(), id1, id2, value1, value2, text);
+            return journal.getWritePosition();
+        }
+    }
+
+    /**
+     * Waits until the log is on disk up to a position. One waiting thread forces everything appended so far
+     * while the others wait for it, so concurrent changes share a single force.
+     *
+     * @param position a position returned by one of the log methods
+     */
+    void awaitDurable(long position) {
+        long from;
+        synchronized (this) {
+            while (durable < position && forcing) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    // the change has already been made, so finish waiting for it to be durable
+                    Thread.currentThread().interrupt();
+                }
+            }
+            if (durable >= position) {
+                return;
+            }
+            forcing = true;
+            from = durable;
+        }
+        long to = journal.getWritePosition();
+        try {
+            journal.force(from, to);
+        } finally {
+            synchronized (this) {
+                forcing = false;
+                if (to > durable) {
+                    durable = to;
+                }
+                notifyAll();
+            }
+        }
+    }
+
+    /**
+     * Replays the records from a position onto a gym. The gym must not be logging to this log yet.
+     *
+     * @param gym      the gym to replay onto
+     * @param position the position to start from, as returned by {@link GymSnapshot#load}
+     * @return the number of records replayed
+     */
+    public int replay(Gym gym, long position) {
+        // only the restored gym runs at the time of the records; it is not serving anyone yet
+        Clock clock = gym.clock.get();
+        MappedJournal.Cursor cursor = journal.cursor(position);
+        MappedJournal.Record record = new MappedJournal.Record();
+        int count = 0;
+        try {
+            while (cursor.next(record)) {
+                gym.clock.set(Clock.fixed(Instant.ofEpochMilli(record.getTimestamp()), clock.getZone()));
+                apply(gym, record);
+                count++;
+            }
+        } finally {
+            gym.clock.set(clock);
+        }
+        return count;
+    }
+
+    private void apply(Gym gym, MappedJournal.Record r) {
+        Secretary secretary = gym.getSecretary();
+        try {
+            switch (r.getCode()) {
+                case SET_SECRETARY:
+                    gym.setSecretary(person(gym, r, r.getText()), r.getId2());
+                    break;
+                case SET_NAME:
+                    gym.setName(r.getText());
+                    break;
+                case REGISTER_CLIENT:
+                    secretary.registerClient(person(gym, r, r.getText()));
+                    break;
+                case UNREGISTER_CLIENT:
+                    // the waitlist promotions that followed are replayed from their own records
+                    RegisterClientAction.unregisterClient(client(gym, r.getId1()), secretary, false);
+                    break;
+                case HIRE_INSTRUCTOR:
+                    StringBuilder text = r.appendText(new StringBuilder());
+                    int count = text.charAt(0) << 16 | text.charAt(1);
+                    ArrayList<SessionType> expertise = new ArrayList<>(count);
+                    for (int i = 0; i < count; i++) {
+                        expertise.add(SessionType.values()[text.charAt(2 + i)]);
+                    }
+                    secretary.hireInstructor(person(gym, r, text.substring(2 + count)), r.getId2(), expertise);
+                    break;
+                case ADD_SESSION:
+                    Instructor instructor = instructor(gym, r.getId1());
+                    SessionType type = SessionType.values()[r.getId2() >> 8];
+                    ForumType forum = ForumType.values()[r.getId2() & 0xFF];
+                    LocalDateTime dateTime = LocalDateTime.ofEpochSecond(r.getValue1(), 0, ZoneOffset.UTC);
+                    secretary.addSession(type, dateTime.format(Session.DATE_TIME_FORMAT), forum, instructor);
+                    break;
+                case BOOKING:
+                    Session session = gym.sessions.get(r.getId2());
+                    RegisterClientAction.replayBooking(client(gym, r.getId1()), session, (int) r.getValue1(),
+                            (int) r.getValue2(), secretary);
+                    break;
+                case PROMOTION:
+                    RegisterClientAction.replayPromotion(client(gym, r.getId1()), gym.sessions.get(r.getId2()),
+                            (int) r.getValue1(), (int) r.getValue2(), secretary);
+                    break;
+                case PAY_SALARIES:
+                    if (r.getId1() == 0) {
+                        secretary.paySalaries();
+                    } else {
+                        secretary.paySalaries(LocalDate.ofEpochDay(r.getValue1()), LocalDate.ofEpochDay(r.getValue2()));
+                    }
+                    break;
+                case NOTIFY_SESSION:
+                    secretary.notify(gym.sessions.get(r.getId2()), r.getText());
+                    break;
+                case NOTIFY_DATE:
+                    secretary.notify(LocalDate.ofEpochDay(r.getValue1()), r.getText());
+                    break;
+                case NOTIFY_CLIENTS:
+                    secretary.notify(r.getText());
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown write-ahead log record: " + r.getCode());
+            }
+        } catch (Exception e) {
+            if (e instanceof IllegalStateException) {
+                throw (IllegalStateException) e;
+            }
+            throw new IllegalStateException("Cannot replay write-ahead log record " + r.getCode(), e);
+        }
+    }
+
+    /**
+     * Rebuilds the person of a record, sharing the balance of any role the person already has in the gym.
+     */
+    private static Person person(Gym gym, MappedJournal.Record r, String name) {
+        int id = r.getId1();
+        Person existing = gym.findPerson(id);
+        Person.Balance balance = existing != null ? existing.getBalance() : new Person.Balance(r.getValue1());
+        long birth = r.getValue2();
+        Gender gender = Gender.values()[(int) (birth >> 24 & 0xFF)];
+        Person.reserveIdsUpTo(id);
+        return new Person(name, balance, gender, LocalDate.ofEpochDay(birth >> 32), id);
+    }
+
+    private static Instructor instructor(Gym gym, int id) {
+        Instructor instructor = gym.findInstructor(id);
+        if (instructor == null) {
+            throw new IllegalStateException("Write-ahead log refers to unknown instructor " + id);
+        }
+        return instructor;
+    }
+
+    private static Client client(Gym gym, int id) {
+        Client client = gym.clients.get(id);
+        if (client == null) {
+            throw new IllegalStateException("Write-ahead log refers to unknown client " + id);
+        }
+        return client;
+    }
+}
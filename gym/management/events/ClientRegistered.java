@@ -0,0 +1,33 @@
+package gym.management.events;
+
+import gym.util.MappedJournal;
+
+/**
+ * A client has registered with the gym.
+ */
+public class ClientRegistered extends PersonEvent {
+    static final byte CODE = 1;
+
+    ClientRegistered() {
+    }
+
+    /**
+     * Constructs the event.
+     *
+     * @param clientId the ID of the client
+     * @param name     the name of the client
+     */
+    public ClientRegistered(int clientId, String name) {
+        super(clientId, name);
+    }
+
+    @Override
+    public void format(StringBuilder sb) {
+        sb.append("Registered new client: ").append(name);
+    }
+
+    @Override
+    public long appendTo(MappedJournal journal, long timestamp) {
+        return journal.append(CODE, timestamp, personId, 0, 0, 0, name);
+    }
+}
@@ -0,0 +1,33 @@
+package gym.management.events;
+
+import gym.util.MappedJournal;
+
+/**
+ * A client has been unregistered from the gym.
+ */
+public class ClientUnregistered extends PersonEvent {
+    static final byte CODE = 2;
+
+    ClientUnregistered() {
+    }
+
+    /**
+     * Constructs the event.
+     *
+     * @param clientId the ID of the client
+     * @param name     the name of the client
+     */
+    public ClientUnregistered(int clientId, String name) {
+        super(clientId, name);
+    }
+
+    @Override
+    public void format(StringBuilder sb) {
+        sb.append("Unregistered client: ").append(name);
+    }
+
+    @Override
+    public long appendTo(MappedJournal journal, long timestamp) {
+        return journal.append(CODE, timestamp, personId, 0, 0, 0, name);
+    }
+}
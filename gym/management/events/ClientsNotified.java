@@ -0,0 +1,48 @@
+package gym.management.events;
+
+import gym.util.MappedJournal;
+
+/**
+ * A message has been sent to all gym clients.
+ */
+public class ClientsNotified extends GymEvent {
+    static final byte CODE = 13;
+
+    private String message;
+
+    ClientsNotified() {
+    }
+
+    /**
+     * Constructs the event.
+     *
+     * @param message the message sent
+     */
+    public ClientsNotified(String message) {
+        this.message = message;
+    }
+
+    /**
+     * Retrieves the message sent.
+     *
+     * @return the message
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public void format(StringBuilder sb) {
+        sb.append("A message was sent to all gym clients: ").append(message);
+    }
+
+    @Override
+    public long appendTo(MappedJournal journal, long timestamp) {
+        return journal.append(CODE, timestamp, 0, 0, 0, 0, message);
+    }
+
+    @Override
+    void readFrom(MappedJournal.Record record) {
+        message = record.getText();
+    }
+}
@@ -0,0 +1,63 @@
+package gym.management.events;
+
+import gym.util.MappedJournal;
+
+import java.time.LocalDate;
+
+/**
+ * A message has been sent to everyone registered for a session on a given date.
+ */
+public class DateNotified extends GymEvent {
+    static final byte CODE = 12;
+
+    private LocalDate date;
+    private String message;
+
+    DateNotified() {
+    }
+
+    /**
+     * Constructs the event.
+     *
+     * @param date    the date of the sessions
+     * @param message the message sent
+     */
+    public DateNotified(LocalDate date, String message) {
+        this.date = date;
+        this.message = message;
+    }
+
+    /**
+     * Retrieves the date of the sessions whose participants were notified.
+     *
+     * @return the date
+     */
+    public LocalDate getDate() {
+        return date;
+    }
+
+    /**
+     * Retrieves the message sent.
+     *
+     * @return the message
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public void format(StringBuilder sb) {
+        sb.append("A message was sent to everyone registered for a session on ").append(date).append(" : ").append(message);
+    }
+
+    @Override
+    public long appendTo(MappedJournal journal, long timestamp) {
+        return journal.append(CODE, timestamp, 0, 0, 0, date.toEpochDay(), message);
+    }
+
+    @Override
+    void readFrom(MappedJournal.Record record) {
+        date = LocalDate.ofEpochDay(record.getValue2());
+        message = record.getText();
+    }
+}
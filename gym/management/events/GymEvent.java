@@ -0,0 +1,92 @@
+package gym.management.events;
+
+import gym.util.MappedJournal;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * An action performed in the gym, as recorded in the actions history.
+ * Events carry typed fields instead of a prepared message; their text is only built by {@link #format(StringBuilder)}
+ * when the history is printed or exported.
+ * <p>
+ * Events read back from a journal are reused by the {@link GymEventReader} that produced them and are only valid
+ * until the next event is read.
+ */
+public abstract class GymEvent {
+    private long timestamp;
+
+    /**
+     * Retrieves the time the event was recorded. Events that were not read from a journal have no timestamp.
+     *
+     * @return the time in epoch milliseconds, or 0
+     */
+    public long getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Appends the history line describing this event.
+     *
+     * @param sb the builder to append to
+     */
+    public abstract void format(StringBuilder sb);
+
+    /**
+     * Writes this event as a journal record.
+     *
+     * @param journal   the journal to append to
+     * @param timestamp the time of the event, in epoch milliseconds
+     * @return the position of the record in the journal
+     */
+    public abstract long appendTo(MappedJournal journal, long timestamp);
+
+    /**
+     * Fills this event in from a journal record of its type.
+     *
+     * @param record the record to read
+     */
+    abstract void readFrom(MappedJournal.Record record);
+
+    /**
+     * Fills in the fields shared by all events, then the event specific ones.
+     *
+     * @param record the record to read
+     */
+    final void read(MappedJournal.Record record) {
+        this.timestamp = record.getTimestamp();
+        readFrom(record);
+    }
+
+    /**
+     * Returns the history line describing this event.
+     *
+     * @return the formatted event
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        format(sb);
+        return sb.toString();
+    }
+
+    /**
+     * Encodes a session time for a journal record.
+     *
+     * @param dateTime the session time
+     * @return the time in epoch seconds
+     */
+    static long encodeTime(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC);
+    }
+
+    /**
+     * Decodes a session time from a journal record.
+     *
+     * @param epochSecond the time in epoch seconds
+     * @return the session time
+     */
+    static LocalDateTime decodeTime(long epochSecond) {
+        return LocalDateTime.ofEpochSecond(epochSecond, 0, ZoneOffset.UTC);
+    }
+}
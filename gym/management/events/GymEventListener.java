@@ -0,0 +1,13 @@
+package gym.management.events;
+
+/**
+ * Receives the events of an actions history, e.g. to print or export them.
+ */
+public interface GymEventListener {
+    /**
+     * Handles one event. The event may be reused once this method returns.
+     *
+     * @param event the event
+     */
+    void onEvent(GymEvent event);
+}
@@ -0,0 +1,67 @@
+package gym.management.events;
+
+import gym.util.MappedJournal;
+
+/**
+ * Turns journal records back into events. The reader keeps one instance per event type and refills it for every
+ * record, so reading a long history allocates no event objects.
+ */
+public class GymEventReader {
+    private final SecretaryStarted secretaryStarted = new SecretaryStarted();
+    private final ClientRegistered clientRegistered = new ClientRegistered();
+    private final ClientUnregistered clientUnregistered = new ClientUnregistered();
+    private final InstructorHired instructorHired = new InstructorHired();
+    private final SessionCreated sessionCreated = new SessionCreated();
+    private final SessionBooked sessionBooked = new SessionBooked();
+    private final RegistrationFailed registrationFailed = new RegistrationFailed();
+    private final SessionNotified sessionNotified = new SessionNotified();
+    private final DateNotified dateNotified = new DateNotified();
+    private final ClientsNotified clientsNotified = new ClientsNotified();
+    private final SalaryPaid salaryPaid = new SalaryPaid();
+    private final WaitlistJoined waitlistJoined = new WaitlistJoined();
+
+    /**
+     * Reads the event stored in a record.
+     *
+     * @param record the record to read
+     * @return the event, valid until the next call
+     * @throws IllegalArgumentException if the record code is unknown
+     */
+    public GymEvent read(MappedJournal.Record record) {
+        GymEvent event = eventFor(record.getCode());
+        event.read(record);
+        return event;
+    }
+
+    private GymEvent eventFor(byte code) {
+        if (RegistrationFailed.hasCode(code)) {
+            return registrationFailed;
+        }
+        switch (code) {
+            case SecretaryStarted.CODE:
+                return secretaryStarted;
+            case ClientRegistered.CODE:
+                return clientRegistered;
+            case ClientUnregistered.CODE:
+                return clientUnregistered;
+            case InstructorHired.CODE:
+                return instructorHired;
+            case SessionCreated.CODE:
+                return sessionCreated;
+            case SessionBooked.CODE:
+                return sessionBooked;
+            case SessionNotified.CODE:
+                return sessionNotified;
+            case DateNotified.CODE:
+                return dateNotified;
+            case ClientsNotified.CODE:
+                return clientsNotified;
+            case SalaryPaid.CODE:
+                return salaryPaid;
+            case WaitlistJoined.CODE:
+                return waitlistJoined;
+            default:
+                throw new IllegalArgumentException("Unknown event code: " + code);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package gym.management.events;
+
+import gym.util.MappedJournal;
+
+/**
+ * An instructor has been hired by the gym.
+ */
+public class InstructorHired extends PersonEvent {
+    static final byte CODE = 3;
+
+    private int salary;
+
+    InstructorHired() {
+    }
+
+    /**
+     * Constructs the event.
+     *
+     * @param instructorId the ID of the instructor
+     * @param name         the name of the instructor
+     * @param salary       the instructor's salary per hour
+     */
+    public InstructorHired(int instructorId, String name, int salary) {
+        super(instructorId, name);
+        this.salary = salary;
+    }
+
+    /**
+     * Retrieves the salary the instructor was hired with.
+     *
+     * @return the salary per hour
+     */
+    public int getSalary() {
+        return salary;
+    }
+
+    @Override
+    public void format(StringBuilder sb) {
+        sb.append("Hired new instructor: ").append(name).append(" with salary per hour: ").append(salary);
+    }
+
+    @Override
+    public long appendTo(MappedJournal journal, long timestamp) {
+        return journal.append(CODE, timestamp, personId, 0, salary, 0, name);
+    }
+
+    @Override
+    void readFrom(MappedJournal.Record record) {
+        super.readFrom(record);
+        salary = (int) record.getValue1();
+    }
+}
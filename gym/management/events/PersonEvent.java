@@ -0,0 +1,52 @@
+package gym.management.events;
+
+import gym.util.MappedJournal;
+
+/**
+ * An event about a single person, identified by ID and name.
+ */
+public abstract class PersonEvent extends GymEvent {
+    protected int personId;
+    protected String name;
+
+    /**
+     * Constructs an empty event, to be filled in from a journal record.
+     */
+    PersonEvent() {
+    }
+
+    /**
+     * Constructs an event about a person.
+     *
+     * @param personId the ID of the person
+     * @param name     the name of the person
+     */
+    protected PersonEvent(int personId, String name) {
+        this.personId = personId;
+        this.name = name;
+    }
+
+    /**
+     * Retrieves the ID of the person the event is about.
+     *
+     * @return the person's ID
+     */
+    public int getPersonId() {
+        return personId;
+    }
+
+    /**
+     * Retrieves the name of the person the event is about.
+     *
+     * @return the person's name
+     */
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    void readFrom(MappedJournal.Record record) {
+        personId = record.getId1();
+        name = record.getText();
+    }
+}
@@ -0,0 +1,147 @@
+package gym.management.events;
+
+import gym.management.Sessions.ForumType;
+import gym.util.MappedJournal;
+
+/**
+ * A client could not be registered to a session. A failed booking may record several of these, one per failed check.
+ * <p>
+ * The event only depends on the reason (and the forum for age failures), so the instances are shared constants
+ * and recording a failure allocates nothing.
+ */
+public class RegistrationFailed extends GymEvent {
+
+    /**
+     * The checks a registration can fail.
+     */
+    public enum Reason {
+        NO_SPOTS((byte) 6),
+        NOT_FUTURE((byte) 7),
+        AGE((byte) 8),
+        GENDER((byte) 9),
+        BALANCE((byte) 10);
+
+        private final byte code;
+
+        Reason(byte code) {
+            this.code = code;
+        }
+    }
+
+    public static final RegistrationFailed NO_SPOTS = new RegistrationFailed(Reason.NO_SPOTS, null);
+    public static final RegistrationFailed NOT_FUTURE = new RegistrationFailed(Reason.NOT_FUTURE, null);
+    public static final RegistrationFailed GENDER = new RegistrationFailed(Reason.GENDER, null);
+    public static final RegistrationFailed BALANCE = new RegistrationFailed(Reason.BALANCE, null);
+
+    private static final RegistrationFailed[] AGE = new RegistrationFailed[ForumType.values().length];
+
+    static {
+        for (ForumType forum : ForumType.values()) {
+            AGE[forum.ordinal()] = new RegistrationFailed(Reason.AGE, forum);
+        }
+    }
+
+    private Reason reason;
+    private ForumType forum;
+
+    RegistrationFailed() {
+    }
+
+    private RegistrationFailed(Reason reason, ForumType forum) {
+        this.reason = reason;
+        this.forum = forum;
+    }
+
+    /**
+     * Retrieves the event for a client who doesn't meet the age requirements of a session's forum.
+     *
+     * @param forum the forum of the session
+     * @return the shared event instance
+     */
+    public static RegistrationFailed age(ForumType forum) {
+        return AGE[forum.ordinal()];
+    }
+
+    /**
+     * Retrieves the event for a failed check other than the age check, which depends on the forum.
+     *
+     * @param reason the failed check
+     * @return the shared event instance
+     * @throws IllegalArgumentException if the reason is {@link Reason#AGE}
+     */
+    public static RegistrationFailed of(Reason reason) {
+        switch (reason) {
+            case NO_SPOTS:
+                return NO_SPOTS;
+            case NOT_FUTURE:
+                return NOT_FUTURE;
+            case GENDER:
+                return GENDER;
+            case BALANCE:
+                return BALANCE;
+            default:
+                throw new IllegalArgumentException("Age failures depend on the forum: " + reason);
+        }
+    }
+
+    /**
+     * Checks if a record code belongs to this event type.
+     *
+     * @param code the record code
+     * @return true if the code is one of the failure reasons
+     */
+    static boolean hasCode(byte code) {
+        return code >= Reason.NO_SPOTS.code && code <= Reason.BALANCE.code;
+    }
+
+    /**
+     * Retrieves the check that failed.
+     *
+     * @return the failure reason
+     */
+    public Reason getReason() {
+        return reason;
+    }
+
+    /**
+     * Retrieves the forum of the session, for age failures.
+     *
+     * @return the forum, or null for other reasons
+     */
+    public ForumType getForum() {
+        return forum;
+    }
+
+    @Override
+    public void format(StringBuilder sb) {
+        sb.append("Failed registration: ");
+        switch (reason) {
+            case NO_SPOTS:
+                sb.append("No available spots for session");
+                break;
+            case NOT_FUTURE:
+                sb.append("Session is not in the future");
+                break;
+            case AGE:
+                sb.append("Client doesn't meet the age requirements for this session (").append(forum).append(")");
+                break;
+            case GENDER:
+                sb.append("Client's gender doesn't match the session's gender requirements");
+                break;
+            case BALANCE:
+                sb.append("Client doesn't have enough balance");
+                break;
+        }
+    }
+
+    @Override
+    public long appendTo(MappedJournal journal, long timestamp) {
+        return journal.append(reason.code, timestamp, 0, 0, forum == null ? 0 : forum.ordinal(), 0, null);
+    }
+
+    @Override
+    void readFrom(MappedJournal.Record record) {
+        reason = Reason.values()[record.getCode() - Reason.NO_SPOTS.code];
+        forum = reason == Reason.AGE ? ForumType.values()[(int) record.getValue1()] : null;
+    }
+}
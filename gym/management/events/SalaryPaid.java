@@ -0,0 +1,48 @@
+package gym.management.events;
+
+import gym.util.MappedJournal;
+
+/**
+ * Salaries have been paid to all employees of the gym.
+ */
+public class SalaryPaid extends GymEvent {
+    static final byte CODE = 14;
+
+    private long total;
+
+    SalaryPaid() {
+    }
+
+    /**
+     * Constructs the event.
+     *
+     * @param total the total amount paid to all employees
+     */
+    public SalaryPaid(long total) {
+        this.total = total;
+    }
+
+    /**
+     * Retrieves the total amount paid to all employees.
+     *
+     * @return the total amount
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    @Override
+    public void format(StringBuilder sb) {
+        sb.append("Salaries have been paid to all employees");
+    }
+
+    @Override
+    public long appendTo(MappedJournal journal, long timestamp) {
+        return journal.append(CODE, timestamp, 0, 0, total, 0, null);
+    }
+
+    @Override
+    void readFrom(MappedJournal.Record record) {
+        total = record.getValue1();
+    }
+}
@@ -0,0 +1,33 @@
+package gym.management.events;
+
+import gym.util.MappedJournal;
+
+/**
+ * A new secretary has started working at the gym.
+ */
+public class SecretaryStarted extends PersonEvent {
+    static final byte CODE = 0;
+
+    SecretaryStarted() {
+    }
+
+    /**
+     * Constructs the event.
+     *
+     * @param secretaryId the ID of the new secretary
+     * @param name        the name of the new secretary
+     */
+    public SecretaryStarted(int secretaryId, String name) {
+        super(secretaryId, name);
+    }
+
+    @Override
+    public void format(StringBuilder sb) {
+        sb.append("A new secretary has started working at the gym: ").append(name);
+    }
+
+    @Override
+    public long appendTo(MappedJournal journal, long timestamp) {
+        return journal.append(CODE, timestamp, personId, 0, 0, 0, name);
+    }
+}
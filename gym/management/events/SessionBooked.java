@@ -0,0 +1,82 @@
+package gym.management.events;
+
+import gym.management.Sessions.SessionType;
+import gym.util.MappedJournal;
+
+import java.time.LocalDateTime;
+
+/**
+ * A client has been registered to a session and charged for it.
+ */
+public class SessionBooked extends PersonEvent {
+    static final byte CODE = 5;
+
+    private SessionType type;
+    private LocalDateTime dateTime;
+    private int price;
+
+    SessionBooked() {
+    }
+
+    /**
+     * Constructs the event.
+     *
+     * @param clientId   the ID of the client
+     * @param clientName the name of the client
+     * @param type       the type of the session
+     * @param dateTime   the date and time of the session
+     * @param price      the price the client paid
+     */
+    public SessionBooked(int clientId, String clientName, SessionType type, LocalDateTime dateTime, int price) {
+        super(clientId, clientName);
+        this.type = type;
+        this.dateTime = dateTime;
+        this.price = price;
+    }
+
+    /**
+     * Retrieves the type of the session.
+     *
+     * @return the session type
+     */
+    public SessionType getType() {
+        return type;
+    }
+
+    /**
+     * Retrieves the date and time of the session.
+     *
+     * @return the session's date and time
+     */
+    public LocalDateTime getDateTime() {
+        return dateTime;
+    }
+
+    /**
+     * Retrieves the price the client paid.
+     *
+     * @return the price
+     */
+    public int getPrice() {
+        return price;
+    }
+
+    @Override
+    public void format(StringBuilder sb) {
+        sb.append("Registered client: ").append(name).append(" to session: ").append(type)
+                .append(" on ").append(dateTime).append(" for price: ").append(price);
+    }
+
+    @Override
+    public long appendTo(MappedJournal journal, long timestamp) {
+        return journal.append(CODE, timestamp, personId, type.ordinal(), price, encodeTime(dateTime), name);
+    }
+
+    @Override
+    void readFrom(MappedJournal.Record record) {
+        super.readFrom(record);
+        type = SessionType.values()[record.getId2()];
+        dateTime = decodeTime(record.getValue2());
+        price = (int) record.getValue1();
+    }
+}
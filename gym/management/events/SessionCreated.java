@@ -0,0 +1,69 @@
+package gym.management.events;
+
+import gym.management.Sessions.SessionType;
+import gym.util.MappedJournal;
+
+import java.time.LocalDateTime;
+
+/**
+ * A session has been added to the gym's schedule.
+ */
+public class SessionCreated extends PersonEvent {
+    static final byte CODE = 4;
+
+    private SessionType type;
+    private LocalDateTime dateTime;
+
+    SessionCreated() {
+    }
+
+    /**
+     * Constructs the event.
+     *
+     * @param type           the type of the session
+     * @param dateTime       the date and time of the session
+     * @param instructorId   the ID of the instructor conducting the session
+     * @param instructorName the name of the instructor conducting the session
+     */
+    public SessionCreated(SessionType type, LocalDateTime dateTime, int instructorId, String instructorName) {
+        super(instructorId, instructorName);
+        this.type = type;
+        this.dateTime = dateTime;
+    }
+
+    /**
+     * Retrieves the type of the session.
+     *
+     * @return the session type
+     */
+    public SessionType getType() {
+        return type;
+    }
+
+    /**
+     * Retrieves the date and time of the session.
+     *
+     * @return the session's date and time
+     */
+    public LocalDateTime getDateTime() {
+        return dateTime;
+    }
+
+    @Override
+    public void format(StringBuilder sb) {
+        sb.append("Created new session: ").append(type).append(" on ").append(dateTime)
+                .append(" with instructor: ").append(name);
+    }
+
+    @Override
+    public long appendTo(MappedJournal journal, long timestamp) {
+        return journal.append(CODE, timestamp, personId, type.ordinal(), 0, encodeTime(dateTime), name);
+    }
+
+    @Override
+    void readFrom(MappedJournal.Record record) {
+        super.readFrom(record);
+        type = SessionType.values()[record.getId2()];
+        dateTime = decodeTime(record.getValue2());
+    }
+}
@@ -0,0 +1,78 @@
+package gym.management.events;
+
+import gym.management.Sessions.SessionType;
+import gym.util.MappedJournal;
+
+import java.time.LocalDateTime;
+
+/**
+ * A message has been sent to everyone registered for a session.
+ */
+public class SessionNotified extends GymEvent {
+    static final byte CODE = 11;
+
+    private SessionType type;
+    private LocalDateTime dateTime;
+    private String message;
+
+    SessionNotified() {
+    }
+
+    /**
+     * Constructs the event.
+     *
+     * @param type     the type of the session
+     * @param dateTime the date and time of the session
+     * @param message  the message sent
+     */
+    public SessionNotified(SessionType type, LocalDateTime dateTime, String message) {
+        this.type = type;
+        this.dateTime = dateTime;
+        this.message = message;
+    }
+
+    /**
+     * Retrieves the type of the session.
+     *
+     * @return the session type
+     */
+    public SessionType getType() {
+        return type;
+    }
+
+    /**
+     * Retrieves the date and time of the session.
+     *
+     * @return the session's date and time
+     */
+    public LocalDateTime getDateTime() {
+        return dateTime;
+    }
+
+    /**
+     * Retrieves the message sent.
+     *
+     * @return the message
+     */
+    public String getMessage() {
+        return message;
+    }
+
+    @Override
+    public void format(StringBuilder sb) {
+        sb.append("A message was sent to everyone registered for session ").append(type)
+                .append(" on ").append(dateTime).append(" : ").append(message);
+    }
+
+    @Override
+    public long appendTo(MappedJournal journal, long timestamp) {
+        return journal.append(CODE, timestamp, 0, type.ordinal(), 0, encodeTime(dateTime), message);
+    }
+
+    @Override
+    void readFrom(MappedJournal.Record record) {
+        type = SessionType.values()[record.getId2()];
+        dateTime = decodeTime(record.getValue2());
+        message = record.getText();
+    }
+}
@@ -0,0 +1,69 @@
+package gym.management.events;
+
+import gym.management.Sessions.SessionType;
+import gym.util.MappedJournal;
+
+import java.time.LocalDateTime;
+
+/**
+ * A client who could not book a full session has been put on its waitlist.
+ */
+public class WaitlistJoined extends PersonEvent {
+    static final byte CODE = 15;
+
+    private SessionType type;
+    private LocalDateTime dateTime;
+
+    WaitlistJoined() {
+    }
+
+    /**
+     * Constructs the event.
+     *
+     * @param clientId   the ID of the client
+     * @param clientName the name of the client
+     * @param type       the type of the session
+     * @param dateTime   the date and time of the session
+     */
+    public WaitlistJoined(int clientId, String clientName, SessionType type, LocalDateTime dateTime) {
+        super(clientId, clientName);
+        this.type = type;
+        this.dateTime = dateTime;
+    }
+
+    /**
+     * Retrieves the type of the session.
+     *
+     * @return the session type
+     */
+    public SessionType getType() {
+        return type;
+    }
+
+    /**
+     * Retrieves the date and time of the session.
+     *
+     * @return the session's date and time
+     */
+    public LocalDateTime getDateTime() {
+        return dateTime;
+    }
+
+    @Override
+    public void format(StringBuilder sb) {
+        sb.append("Waitlisted client: ").append(name).append(" for session: ").append(type)
+                .append(" on ").append(dateTime);
+    }
+
+    @Override
+    public long appendTo(MappedJournal journal, long timestamp) {
+        return journal.append(CODE, timestamp, personId, type.ordinal(), 0, encodeTime(dateTime), name);
+    }
+
+    @Override
+    void readFrom(MappedJournal.Record record) {
+        super.readFrom(record);
+        type = SessionType.values()[record.getId2()];
+        dateTime = decodeTime(record.getValue2());
+    }
+}
@@ -0,0 +1,129 @@
+package gym.util;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Parses the fixed date layouts the gym uses: "dd-MM-yyyy" and "yyyy-MM-dd" for dates and "dd-MM-yyyy HH:mm"
+ * for session times.
+ * <p>
+ * Well-formed values are read by char arithmetic, without regular expressions or formatters. Anything else,
+ * such as a day past the end of its month or a longer year, is handed to the matching {@link DateTimeFormatter},
+ * so the results and the exceptions are exactly those of parsing with the formatter.
+ */
+public final class DateCodec {
+    /** The "dd-MM-yyyy" layout, e.g. of birth dates and notification dates. */
+    public static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+
+    /** The "yyyy-MM-dd" layout, also accepted for birth dates. */
+    public static final DateTimeFormatter ISO_DATE_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    /** The "dd-MM-yyyy HH:mm" layout of session times. */
+    public static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+
+    private static final int[] DAYS_IN_MONTH = {0, 31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31};
+
+    private DateCodec() {
+    }
+
+    /**
+     * Parses a date in the "dd-MM-yyyy" format.
+     *
+     * @param text the text to parse
+     * @return the date
+     * @throws DateTimeParseException if the text is not a valid date in this format
+     */
+    public static LocalDate parseDate(CharSequence text) {
+        if (text.length() == 10 && text.charAt(2) == '-' && text.charAt(5) == '-') {
+            LocalDate date = date(digits(text, 6, 4), digits(text, 3, 2), digits(text, 0, 2));
+            if (date != null) {
+                return date;
+            }
+        }
+        return LocalDate.parse(text, DATE_FORMAT);
+    }
+
+    /**
+     * Parses a birth date in the "yyyy-MM-dd" or "dd-MM-yyyy" format, with exactly four digits for the year.
+     *
+     * @param text the text to parse
+     * @return the date
+     * @throws IllegalArgumentException if the text is in neither format
+     * @throws DateTimeParseException   if the text is in one of the formats but is not a valid date
+     */
+    public static LocalDate parseBirthDate(String text) {
+        if (text.length() == 10) {
+            if (text.charAt(4) == '-' && text.charAt(7) == '-') {
+                int year = digits(text, 0, 4);
+                int month = digits(text, 5, 2);
+                int day = digits(text, 8, 2);
+                if (year >= 0 && month >= 0 && day >= 0) {
+                    LocalDate date = date(year, month, day);
+                    return date != null ? date : LocalDate.parse(text, ISO_DATE_FORMAT);
+                }
+            }
+            if (text.charAt(2) == '-' && text.charAt(5) == '-') {
+                int day = digits(text, 0, 2);
+                int month = digits(text, 3, 2);
+                int year = digits(text, 6, 4);
+                if (year >= 0 && month >= 0 && day >= 0) {
+                    LocalDate date = date(year, month, day);
+                    return date != null ? date : LocalDate.parse(text, DATE_FORMAT);
+                }
+            }
+        }
+        throw new IllegalArgumentException("Invalid birth date format: " + text);
+    }
+
+    /**
+     * Parses a date and time in the "dd-MM-yyyy HH:mm" format.
+     *
+     * @param text the text to parse
+     * @return the date and time
+     * @throws DateTimeParseException if the text is not a valid date and time in this format
+     */
+    public static LocalDateTime parseDateTime(CharSequence text) {
+        if (text.length() == 16 && text.charAt(2) == '-' && text.charAt(5) == '-' && text.charAt(10) == ' '
+                && text.charAt(13) == ':') {
+            LocalDate date = date(digits(text, 6, 4), digits(text, 3, 2), digits(text, 0, 2));
+            int hour = digits(text, 11, 2);
+            int minute = digits(text, 14, 2);
+            if (date != null && hour >= 0 && hour < 24 && minute >= 0 && minute < 60) {
+                return date.atTime(hour, minute);
+            }
+        }
+        return LocalDateTime.parse(text, DATE_TIME_FORMAT);
+    }
+
+    /**
+     * Reads a fixed number of ASCII digits.
+     *
+     * @return the value of the digits, or -1 if one of the chars is not a digit
+     */
+    private static int digits(CharSequence text, int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+
+    /**
+     * Builds a date whose fields are all in range.
+     *
+     * @return the date, or null if a field is missing or out of range and the formatter has to decide
+     */
+    private static LocalDate date(int year, int month, int day) {
+        if (year < 1 || month < 1 || month > 12 || day < 1) {
+            return null;
+        }
+        int length = month == 2 && (year & 3) == 0 && (year % 100 != 0 || year % 400 == 0) ? 29 : DAYS_IN_MONTH[month];
+        return day <= length ? LocalDate.of(year, month, day) : null;
+    }
+}
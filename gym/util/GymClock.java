@@ -0,0 +1,140 @@
+package gym.util;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * The clock a gym reads the current time from. Every gym has its own, built from the {@link Clock} it was
+ * created with, so a gym can run at a chosen point in time, or be replayed at the time of its log records,
+ * without affecting the other gyms of the process. Code not tied to one gym, such as a person's age,
+ * reads the shared {@link #system()} clock, which cannot be replaced.
+ * <p>
+ * The current day is cached until midnight, so asking for it costs one millisecond read
+ * instead of a time zone conversion.
+ */
+public final class GymClock {
+    private static final GymClock SYSTEM = new GymClock(Clock.systemDefaultZone());
+
+    private final Clock initial;
+    private volatile Clock clock;
+    private volatile Day today;
+
+    /**
+     * Constructs a gym clock.
+     *
+     * @param clock the clock to read the time from
+     */
+    public GymClock(Clock clock) {
+        if (clock == null) {
+            throw new NullPointerException("clock");
+        }
+        this.initial = clock;
+        this.clock = clock;
+    }
+
+    /**
+     * Retrieves the system clock shared by the code that does not belong to one gym.
+     *
+     * @return the system clock
+     */
+    public static GymClock system() {
+        return SYSTEM;
+    }
+
+    /**
+     * Retrieves the clock currently in use.
+     *
+     * @return the gym's clock
+     */
+    public Clock get() {
+        return clock;
+    }
+
+    /**
+     * Replaces the clock the gym reads the time from.
+     *
+     * @param newClock the clock to use from now on
+     * @throws UnsupportedOperationException if this is the shared system clock
+     */
+    public void set(Clock newClock) {
+        if (newClock == null) {
+            throw new NullPointerException("clock");
+        }
+        if (this == SYSTEM) {
+            throw new UnsupportedOperationException("The shared system clock cannot be replaced");
+        }
+        clock = newClock;
+    }
+
+    /**
+     * Freezes the gym's time at the given moment in the zone of its clock.
+     *
+     * @param dateTime the moment the clock will always report
+     */
+    public void setFixed(LocalDateTime dateTime) {
+        ZoneId zone = clock.getZone();
+        set(Clock.fixed(dateTime.atZone(zone).toInstant(), zone));
+    }
+
+    /**
+     * Goes back to the clock the gym was created with.
+     */
+    public void reset() {
+        set(initial);
+    }
+
+    /**
+     * Retrieves the current time in epoch milliseconds.
+     *
+     * @return the current time
+     */
+    public long millis() {
+        return clock.millis();
+    }
+
+    /**
+     * Retrieves the current date and time.
+     *
+     * @return the current local date and time
+     */
+    public LocalDateTime now() {
+        return LocalDateTime.now(clock);
+    }
+
+    /**
+     * Retrieves the current day.
+     *
+     * @return the current local date
+     */
+    public LocalDate today() {
+        Clock c = clock;
+        long now = c.millis();
+        Day d = today;
+        if (d == null || d.clock != c || now < d.start || now >= d.end) {
+            d = new Day(c, now);
+            today = d;
+        }
+        return d.date;
+    }
+
+    /**
+     * A day of a clock and the range of milliseconds it covers.
+     */
+    private static final class Day {
+        private final Clock clock;
+        private final LocalDate date;
+        private final long start;
+        private final long end;
+
+        Day(Clock clock, long millis) {
+            ZoneId zone = clock.getZone();
+            this.clock = clock;
+            this.date = Instant.ofEpochMilli(millis).atZone(zone).toLocalDate();
+            this.start = date.atStartOfDay(zone).toInstant().toEpochMilli();
+            this.end = date.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package gym.util;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A hash map keyed by primitive {@code int} values that keeps its entries in insertion order.
+ * Keys are stored in an open-addressing table with linear probing, so lookups, insertions and
+ * removals are O(1) on average and never box the key.
+ * Entries live in dense arrays in the order they were added; removed entries leave a hole that is
+ * skipped during iteration and reclaimed on the next rebuild.
+ *
+ * @param <V> the type of the mapped values
+ */
+public class IntLinkedMap<V> {
+    private static final int MIN_CAPACITY = 16;
+
+    /** Hash table holding (dense index + 1) for each key, 0 marks an empty slot. */
+    private int[] slots;
+
+    /** Keys in insertion order. */
+    private int[] keys;
+
+    /** Values in insertion order, {@code null} for removed entries. */
+    private Object[] values;
+
+    /** Number of dense positions in use, including removed ones. */
+    private int end;
+
+    /** Number of live entries. */
+    private int size;
+
+    /** Incremented on every structural change, used to detect modification during iteration. */
+    private int modCount;
+
+    /**
+     * Constructs an empty map.
+     */
+    public IntLinkedMap() {
+        this(MIN_CAPACITY);
+    }
+
+    /**
+     * Constructs an empty map sized to hold the given number of entries without rebuilding.
+     *
+     * @param expectedSize the expected number of entries
+     */
+    public IntLinkedMap(int expectedSize) {
+        int capacity = Math.max(MIN_CAPACITY, expectedSize);
+        this.keys = new int[capacity];
+        this.values = new Object[capacity];
+        this.slots = new int[tableSizeFor(capacity)];
+    }
+
+    /**
+     * Retrieves the number of entries in the map.
+     *
+     * @return the number of entries
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks if the map has no entries.
+     *
+     * @return true if the map is empty, false otherwise
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Checks if the map contains the given key.
+     *
+     * @param key the key to look up
+     * @return true if the key is present, false otherwise
+     */
+    public boolean containsKey(int key) {
+        return findSlot(key) >= 0;
+    }
+
+    /**
+     * Retrieves the value mapped to the given key.
+     *
+     * @param key the key to look up
+     * @return the mapped value, or null if the key is not present
+     */
+    @SuppressWarnings("unchecked")
+    public V get(int key) {
+        int slot = findSlot(key);
+        return slot < 0 ? null : (V) values[slots[slot] - 1];
+    }
+
+    /**
+     * Maps the given key to the given value. A new key is appended at the end of the iteration order,
+     * an existing key keeps its position.
+     *
+     * @param key   the key
+     * @param value the value, must not be null
+     * @return the previous value mapped to the key, or null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(int key, V value) {
+        if (value == null) {
+            throw new NullPointerException("IntLinkedMap does not accept null values");
+        }
+        int slot = findSlot(key);
+        if (slot >= 0) {
+            int index = slots[slot] - 1;
+            V old = (V) values[index];
+            values[index] = value;
+            return old;
+        }
+        if (end == keys.length) {
+            rebuild(Math.max(MIN_CAPACITY, size * 2));
+            slot = findSlot(key);
+        }
+        keys[end] = key;
+        values[end] = value;
+        end++;
+        slots[-slot - 1] = end;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    /**
+     * Maps the given key to the given value only if the key is not present yet.
+     *
+     * @param key   the key
+     * @param value the value, must not be null
+     * @return true if the value was added, false if the key was already present
+     */
+    public boolean putIfAbsent(int key, V value) {
+        if (containsKey(key)) {
+            return false;
+        }
+        put(key, value);
+        return true;
+    }
+
+    /**
+     * Removes the entry for the given key.
+     *
+     * @param key the key to remove
+     * @return the removed value, or null if the key was not present
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(int key) {
+        int slot = findSlot(key);
+        if (slot < 0) {
+            return null;
+        }
+        int index = slots[slot] - 1;
+        V old = (V) values[index];
+        values[index] = null;
+        deleteSlot(slot);
+        size--;
+        modCount++;
+        if (size == 0) {
+            end = 0;
+        }
+        return old;
+    }
+
+    /**
+     * Removes all entries from the map.
+     */
+    public void clear() {
+        Arrays.fill(slots, 0);
+        Arrays.fill(values, 0, end, null);
+        end = 0;
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Returns a live view of the values in insertion order.
+     * The view supports iteration, size and removal through the iterator.
+     *
+     * @return a collection view of the values
+     */
+    public AbstractCollection<V> values() {
+        return new AbstractCollection<V>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new ValueIterator();
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * Finds the table slot holding the given key.
+     *
+     * @param key the key to look up
+     * @return the slot index if found, otherwise -(insertion slot + 1)
+     */
+    private int findSlot(int key) {
+        int mask = slots.length - 1;
+        int slot = mix(key) & mask;
+        while (true) {
+            int entry = slots[slot];
+            if (entry == 0) {
+                return -slot - 1;
+            }
+            if (keys[entry - 1] == key) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * Empties a table slot and shifts back the following entries of its probe chain,
+     * so lookups never need tombstones.
+     *
+     * @param slot the slot to empty
+     */
+    private void deleteSlot(int slot) {
+        int mask = slots.length - 1;
+        int hole = slot;
+        int next = (hole + 1) & mask;
+        while (slots[next] != 0) {
+            int home = mix(keys[slots[next] - 1]) & mask;
+            // move the entry back if its home slot is not between the hole and its current slot
+            if (((next - home) & mask) >= ((next - hole) & mask)) {
+                slots[hole] = slots[next];
+                hole = next;
+            }
+            next = (next + 1) & mask;
+        }
+        slots[hole] = 0;
+    }
+
+    /**
+     * Compacts the dense arrays, dropping removed entries, and rehashes them into a table for the new capacity.
+     *
+     * @param capacity the new dense capacity
+     */
+    private void rebuild(int capacity) {
+        int[] newKeys = new int[capacity];
+        Object[] newValues = new Object[capacity];
+        int[] newSlots = new int[tableSizeFor(capacity)];
+        int mask = newSlots.length - 1;
+        int n = 0;
+        for (int i = 0; i < end; i++) {
+            if (values[i] != null) {
+                newKeys[n] = keys[i];
+                newValues[n] = values[i];
+                int slot = mix(keys[i]) & mask;
+                while (newSlots[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                newSlots[slot] = ++n;
+            }
+        }
+        keys = newKeys;
+        values = newValues;
+        slots = newSlots;
+        end = n;
+    }
+
+    /**
+     * Computes a table size that keeps the load factor at or below one half.
+     *
+     * @param capacity the number of entries the table must hold
+     * @return a power of two table size
+     */
+    private static int tableSizeFor(int capacity) {
+        return Integer.highestOneBit(capacity * 2 - 1) << 1;
+    }
+
+    /**
+     * Spreads the bits of a key so sequential ids do not cluster in the table.
+     *
+     * @param key the key to hash
+     * @return the mixed hash
+     */
+    private static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Iterates the live values in insertion order.
+     */
+    private class ValueIterator implements Iterator<V> {
+        private int next;
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        ValueIterator() {
+            advance();
+        }
+
+        private void advance() {
+            while (next < end && values[next] == null) {
+                next++;
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < end;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V next() {
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            if (next >= end) {
+                throw new NoSuchElementException();
+            }
+            last = next++;
+            advance();
+            return (V) values[last];
+        }
+
+        @Override
+        public void remove() {
+            if (last < 0) {
+                throw new IllegalStateException();
+            }
+            if (modCount != expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+            IntLinkedMap.this.remove(keys[last]);
+            expectedModCount = modCount;
+            last = -1;
+            if (size == 0) {
+                next = 0;
+            }
+        }
+    }
+}
@@ -0,0 +1,598 @@
+package gym.util;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.zip.CRC32C;
+
+/**
+ * An append-only journal of small binary records stored in memory-mapped segment files.
+ * Records live outside the Java heap; a segment is mapped once and records are written into it
+ * until it is full, after which the journal rotates to a new segment file. The first segment of a new journal
+ * is only created when the first record is written, so an empty journal holds no mapping.
+ * <p>
+ * Every record has the same header (code, timestamp, two ids and two values) followed by an optional text.
+ * A position in the journal is {@code segmentIndex * segmentSize + offset}, so readers can remember
+ * where they stopped and tail the journal from there.
+ * <p>
+ * Each record carries a CRC32C of its length and contents. The pages of a mapped file can reach the disk in any
+ * order, so a crash can leave a record half written; when the journal is opened again it ends at the first record
+ * that fails its checksum, and the rest of that segment is cleared before new records are written over it.
+ * <p>
+ * Appends are serialized; readers only hold the journal's lock while they look up the segment to read, and only see
+ * fully written records.
+ */
+public class MappedJournal {
+    /** Length marker telling readers that the rest of the segment is unused. */
+    private static final int END_OF_SEGMENT = -1;
+
+    /** File name suffix of the segment files. */
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    /** Bytes taken by the length, checksum, code, timestamp, ids, values and text length of a record. */
+    private static final int HEADER_SIZE = 4 + 4 + 1 + 8 + 4 + 4 + 8 + 8 + 4;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final List<MappedByteBuffer> segments;
+    private final boolean deleteOnExit;
+
+    /** Index of the first segment still kept by the journal. */
+    private volatile int firstSegment;
+
+    /** Position right after the last fully written record. */
+    private volatile long writePosition;
+
+    /** Set once the journal is closed and its segments are released. Guarded by this. */
+    private boolean closed;
+
+    /**
+     * Opens the journal stored in the given directory, creating it if needed.
+     * Existing segment files are mapped again and new records are appended after the last one found.
+     * The segment size must match the one the journal was written with.
+     *
+     * @param directory   the directory holding the segment files
+     * @param segmentSize the size of each segment file in bytes
+     */
+    public MappedJournal(Path directory, int segmentSize) {
+        this(directory, segmentSize, false);
+    }
+
+    private MappedJournal(Path directory, int segmentSize, boolean deleteOnExit) {
+        if (segmentSize < HEADER_SIZE * 2) {
+            throw new IllegalArgumentException("Segment size too small: " + segmentSize);
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.deleteOnExit = deleteOnExit;
+        this.segments = new CopyOnWriteArrayList<>();
+        try {
+            Files.createDirectories(directory);
+            int first = -1;
+            int last = -1;
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SEGMENT_SUFFIX)) {
+                for (Path file : files) {
+                    String name = file.getFileName().toString();
+                    int index = Integer.parseInt(name.substring(0, name.length() - SEGMENT_SUFFIX.length()));
+                    first = first < 0 ? index : Math.min(first, index);
+                    last = Math.max(last, index);
+                }
+            }
+            if (last < 0) {
+                // mapped on the first append, so a journal that stays empty costs no mapping
+                segments.add(null);
+                return;
+            }
+            for (int i = 0; i <= last; i++) {
+                segments.add(i < first ? null : map(i));
+            }
+            firstSegment = first;
+            writePosition = findEnd(last);
+        } catch (IOException | NumberFormatException e) {
+            throw new IllegalStateException("Cannot open journal in " + directory, e);
+        }
+    }
+
+    /**
+     * Opens a journal in a temporary directory whose files are deleted when the JVM exits.
+     *
+     * @param segmentSize the size of each segment file in bytes
+     * @return the new journal
+     */
+    public static MappedJournal temporary(int segmentSize) {
+        try {
+            Path dir = Files.createTempDirectory("gym-journal");
+            dir.toFile().deleteOnExit();
+            return new MappedJournal(dir, segmentSize, true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends a record to the journal.
+     *
+     * @param code      the record type
+     * @param timestamp the time of the record, in epoch milliseconds
+     * @param id1       the first id field
+     * @param id2       the second id field
+     * @param value1    the first value field
+     * @param value2    the second value field
+     * @param text      an optional text, or null
+     * @return the position of the appended record
+     */
+    public synchronized long append(byte code, long timestamp, int id1, int id2, long value1, long value2, CharSequence text) {
+        checkOpen();
+        int textLength = text == null ? 0 : text.length();
+        int length = HEADER_SIZE + textLength * 2;
+        if (length > segmentSize - 4) {
+            throw new IllegalArgumentException("Record of " + length + " bytes does not fit in a segment");
+        }
+        long position = writePosition;
+        int offset = offsetOf(position);
+        if (offset + length > segmentSize - 4) {
+            position = rotate();
+            offset = 0;
+        }
+        MappedByteBuffer segment = writableSegment(position);
+        int p = offset + 8;
+        segment.put(p, code);
+        segment.putLong(p + 1, timestamp);
+        segment.putInt(p + 9, id1);
+        segment.putInt(p + 13, id2);
+        segment.putLong(p + 17, value1);
+        segment.putLong(p + 25, value2);
+        segment.putInt(p + 33, textLength);
+        p += 37;
+        for (int i = 0; i < textLength; i++) {
+            segment.putChar(p + i * 2, text.charAt(i));
+        }
+        segment.putInt(offset + 4, checksum(segment, offset, length));
+        segment.putInt(offset, length);
+        writePosition = position + length;
+        return position;
+    }
+
+    /**
+     * Closes the current segment and continues writing at the start of a new segment file.
+     *
+     * @return the position of the new segment
+     */
+    public synchronized long rotate() {
+        checkOpen();
+        long position = writePosition;
+        int offset = offsetOf(position);
+        if (offset == 0 && position != 0) {
+            return position;
+        }
+        writableSegment(position).putInt(offset, END_OF_SEGMENT);
+        int next = (int) (position / segmentSize) + 1;
+        segments.add(map(next));
+        writePosition = (long) next * segmentSize;
+        return writePosition;
+    }
+
+    /**
+     * Deletes the segment files that only hold records before the given position.
+     * Cursors positioned in a dropped segment continue from the oldest segment still kept.
+     *
+     * @param position the oldest position that must stay readable
+     */
+    public synchronized void dropBefore(long position) {
+        checkOpen();
+        int keepFrom = (int) (Math.min(position, writePosition) / segmentSize);
+        while (firstSegment < keepFrom) {
+            segments.set(firstSegment, null);
+            try {
+                Files.deleteIfExists(segmentFile(firstSegment));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            firstSegment++;
+        }
+    }
+
+    /**
+     * Discards the records from a position onwards, so new records are written there. Used when the records
+     * are about to be written again, e.g. when a history is rebuilt from a log. No cursor may read past the position.
+     *
+     * @param position the position right after the last record to keep; later positions are ignored
+     */
+    public synchronized void truncate(long position) {
+        checkOpen();
+        if (position >= writePosition) {
+            return;
+        }
+        if (position < firstPosition()) {
+            throw new IllegalArgumentException("Position " + position + " was already dropped");
+        }
+        int index = (int) (position / segmentSize);
+        while (segments.size() > index + 1) {
+            int last = segments.size() - 1;
+            segments.remove(last);
+            try {
+                Files.deleteIfExists(segmentFile(last));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        MappedByteBuffer segment = segments.get(index);
+        for (int i = offsetOf(position); i < segmentSize; i++) {
+            segment.put(i, (byte) 0);
+        }
+        writePosition = position;
+    }
+
+    /**
+     * Forces the written records to the storage device.
+     */
+    public synchronized void flush() {
+        for (int i = firstSegment; i < segments.size(); i++) {
+            MappedByteBuffer segment = segments.get(i);
+            if (segment != null) {
+                segment.force();
+            }
+        }
+    }
+
+    /**
+     * Forces the records written between two positions to the storage device. Unlike {@link #flush()},
+     * appends are not blocked while the data is written, so one thread can force a batch of records
+     * while others keep appending.
+     *
+     * @param from the first position to force
+     * @param to   the position right after the last record to force
+     * @throws IllegalStateException if the journal is closed
+     */
+    public void force(long from, long to) {
+        while (from < to) {
+            MappedByteBuffer segment;
+            synchronized (this) {
+                checkOpen();
+                from = Math.max(from, firstPosition());
+                if (from >= to) {
+                    return;
+                }
+                segment = segmentAt(from);
+            }
+            int offset = offsetOf(from);
+            long segmentEnd = (from / segmentSize + 1) * segmentSize;
+            long end = Math.min(to, segmentEnd);
+            if (segment != null) {
+                segment.force(offset, (int) (end - from));
+            }
+            from = end == segmentEnd ? segmentEnd : to;
+        }
+    }
+
+    /**
+     * Forces the records to the storage device and releases the segments. The mappings go away once the
+     * buffers are garbage collected; the files of a temporary journal are deleted right away.
+     * Appending to a closed journal, forcing it or reading it with a cursor fails with an {@link IllegalStateException}.
+     */
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        if (!deleteOnExit) {
+            flush();
+        }
+        closed = true;
+        int count = segments.size();
+        segments.clear();
+        if (deleteOnExit) {
+            try {
+                for (int i = firstSegment; i < count; i++) {
+                    Files.deleteIfExists(segmentFile(i));
+                }
+                Files.deleteIfExists(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    /**
+     * Checks if the journal lives in a temporary directory, so its records do not outlive the JVM.
+     *
+     * @return true if the journal was opened with {@link #temporary}
+     */
+    public boolean isTemporary() {
+        return deleteOnExit;
+    }
+
+    /**
+     * Retrieves the position right after the last record, where the next record will be written.
+     *
+     * @return the current write position
+     */
+    public long getWritePosition() {
+        return writePosition;
+    }
+
+    /**
+     * Opens a cursor over the records starting at the oldest record still kept.
+     *
+     * @return a new cursor
+     */
+    public Cursor cursor() {
+        return cursor(0);
+    }
+
+    /**
+     * Opens a cursor over the records starting at the given position.
+     *
+     * @param position a position previously returned by the journal or a cursor
+     * @return a new cursor
+     */
+    public Cursor cursor(long position) {
+        return new Cursor(position);
+    }
+
+    private void checkOpen() {
+        if (closed) {
+            throw new IllegalStateException("The journal in " + directory + " is closed");
+        }
+    }
+
+    private int offsetOf(long position) {
+        return (int) (position % segmentSize);
+    }
+
+    private MappedByteBuffer segmentAt(long position) {
+        return segments.get((int) (position / segmentSize));
+    }
+
+    /**
+     * Retrieves the segment a record is written at, mapping it if nothing was written to it yet.
+     */
+    private MappedByteBuffer writableSegment(long position) {
+        int index = (int) (position / segmentSize);
+        MappedByteBuffer segment = segments.get(index);
+        if (segment == null) {
+            segment = map(index);
+            segments.set(index, segment);
+        }
+        return segment;
+    }
+
+    private long firstPosition() {
+        return (long) firstSegment * segmentSize;
+    }
+
+    private Path segmentFile(int index) {
+        return directory.resolve(String.format("%010d", index) + SEGMENT_SUFFIX);
+    }
+
+    private MappedByteBuffer map(int index) {
+        Path file = segmentFile(index);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            if (deleteOnExit) {
+                file.toFile().deleteOnExit();
+            }
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Finds the end of the records in a segment. Unused space is zero filled, and no record has length zero.
+     * The records end early at the first one that is torn; the space from there on is cleared.
+     *
+     * @param index the segment to scan
+     * @return the position right after its last intact record
+     */
+    private long findEnd(int index) {
+        MappedByteBuffer segment = segments.get(index);
+        int offset = 0;
+        while (offset <= segmentSize - 4) {
+            int length = segment.getInt(offset);
+            if (length == 0) {
+                break;
+            }
+            if (length == END_OF_SEGMENT) {
+                // the segment was closed but the next one was never created
+                segments.add(map(index + 1));
+                return (long) (index + 1) * segmentSize;
+            }
+            if (!isIntact(segment, offset, length)) {
+                // a later record may have reached the disk intact; new records must never line up with it
+                for (int i = offset; i < segmentSize; i++) {
+                    segment.put(i, (byte) 0);
+                }
+                break;
+            }
+            offset += length;
+        }
+        return (long) index * segmentSize + offset;
+    }
+
+    /**
+     * Checks that a record has a possible length and matches its checksum.
+     */
+    private boolean isIntact(MappedByteBuffer segment, int offset, int length) {
+        return length >= HEADER_SIZE && length <= segmentSize - 4 - offset
+                && segment.getInt(offset + 4) == checksum(segment, offset, length);
+    }
+
+    /**
+     * Computes the checksum of a record: its length and everything after the checksum field.
+     */
+    private static int checksum(MappedByteBuffer segment, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(length >>> 24);
+        crc.update(length >>> 16);
+        crc.update(length >>> 8);
+        crc.update(length);
+        crc.update(segment.duplicate().limit(offset + length).position(offset + 8));
+        return (int) crc.getValue();
+    }
+
+    /**
+     * A reusable holder for the fields of one record, filled in by a {@link Cursor}.
+     */
+    public static class Record {
+        private byte code;
+        private long timestamp;
+        private int id1;
+        private int id2;
+        private long value1;
+        private long value2;
+        private char[] text = new char[64];
+        private int textLength;
+
+        /**
+         * Retrieves the record type.
+         *
+         * @return the record code
+         */
+        public byte getCode() {
+            return code;
+        }
+
+        /**
+         * Retrieves the time of the record.
+         *
+         * @return the timestamp in epoch milliseconds
+         */
+        public long getTimestamp() {
+            return timestamp;
+        }
+
+        /**
+         * Retrieves the first id field.
+         *
+         * @return the first id
+         */
+        public int getId1() {
+            return id1;
+        }
+
+        /**
+         * Retrieves the second id field.
+         *
+         * @return the second id
+         */
+        public int getId2() {
+            return id2;
+        }
+
+        /**
+         * Retrieves the first value field.
+         *
+         * @return the first value
+         */
+        public long getValue1() {
+            return value1;
+        }
+
+        /**
+         * Retrieves the second value field.
+         *
+         * @return the second value
+         */
+        public long getValue2() {
+            return value2;
+        }
+
+        /**
+         * Appends the text of the record to a builder without creating a String.
+         *
+         * @param sb the builder to append to
+         * @return the same builder
+         */
+        public StringBuilder appendText(StringBuilder sb) {
+            return sb.append(text, 0, textLength);
+        }
+
+        /**
+         * Retrieves the text of the record.
+         *
+         * @return the text, empty if the record has none
+         */
+        public String getText() {
+            return new String(text, 0, textLength);
+        }
+    }
+
+    /**
+     * Reads records in order, starting from a position. A cursor that reached the end of the journal
+     * can be polled again later to pick up newly appended records, which is how the journal is tailed.
+     */
+    public class Cursor {
+        private long position;
+
+        private Cursor(long position) {
+            this.position = position;
+        }
+
+        /**
+         * Retrieves the position of the next record this cursor will read.
+         *
+         * @return the cursor position
+         */
+        public long getPosition() {
+            return position;
+        }
+
+        /**
+         * Reads the next record, if one has been written. A record that fails its checksum ends the journal
+         * for this cursor: it is not read and the cursor stays in front of it.
+         *
+         * @param into the record to fill in
+         * @return true if a record was read, false if the cursor is at the end of the journal
+         * @throws IllegalStateException if the journal is closed
+         */
+        public boolean next(Record into) {
+            while (true) {
+                MappedByteBuffer segment;
+                // close() and dropBefore() change the segments under the same lock; the mapping itself stays
+                // readable after it is released
+                synchronized (MappedJournal.this) {
+                    checkOpen();
+                    position = Math.max(position, firstPosition());
+                    if (position >= writePosition) {
+                        return false;
+                    }
+                    segment = segmentAt(position);
+                }
+                int offset = offsetOf(position);
+                int length = segment.getInt(offset);
+                if (length == END_OF_SEGMENT) {
+                    position = (position / segmentSize + 1) * segmentSize;
+                    continue;
+                }
+                if (!isIntact(segment, offset, length)) {
+                    return false;
+                }
+                int p = offset + 8;
+                into.code = segment.get(p);
+                into.timestamp = segment.getLong(p + 1);
+                into.id1 = segment.getInt(p + 9);
+                into.id2 = segment.getInt(p + 13);
+                into.value1 = segment.getLong(p + 17);
+                into.value2 = segment.getLong(p + 25);
+                int textLength = segment.getInt(p + 33);
+                if (into.text.length < textLength) {
+                    into.text = new char[Math.max(textLength, into.text.length * 2)];
+                }
+                p += 37;
+                for (int i = 0; i < textLength; i++) {
+                    into.text[i] = segment.getChar(p + i * 2);
+                }
+                into.textLength = textLength;
+                position += length;
+                return true;
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package gym.util;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A fixed set of locks shared by many objects. Each object is mapped to one stripe by its identity hash,
+ * so operations on different objects usually run in parallel without allocating a lock per object.
+ */
+public class StripedLocks {
+    private final ReentrantLock[] stripes;
+
+    /**
+     * Constructs a set of locks with at least the given number of stripes.
+     *
+     * @param stripeCount the minimum number of stripes, rounded up to a power of two
+     */
+    public StripedLocks(int stripeCount) {
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Retrieves the lock guarding the given object.
+     *
+     * @param o the object to lock
+     * @return the stripe the object is mapped to
+     */
+    public ReentrantLock get(Object o) {
+        int h = System.identityHashCode(o);
+        h ^= h >>> 16;
+        return stripes[h & (stripes.length - 1)];
+    }
+}
@@ -0,0 +1,131 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.Instructor;
+import gym.customers.Person;
+import gym.management.Sessions.ForumType;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionType;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A run of gym actions touching every kind of state a snapshot or a write-ahead log has to restore, and a text
+ * description of that state for comparing a gym with its restored copy.
+ */
+final class GymScenario {
+    static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 9, 0);
+
+    private static final int NEXT_SECRETARY_ID = 900_000;
+
+    private GymScenario() {
+    }
+
+    /**
+     * Builds an empty gym outside the registry whose clock stands still at {@link #NOW}.
+     */
+    static Gym newGym() {
+        Gym gym = new Gym();
+        gym.clock.setFixed(NOW);
+        return gym;
+    }
+
+    /**
+     * Plays the first part of the scenario: staff, clients, sessions, bookings and a waitlist.
+     */
+    static void setUp(Gym gym) throws Exception {
+        gym.setName("Scenario Gym");
+        gym.setSecretary(new Person("Dana", 500, Gender.Female, "01-01-1980"), 9000);
+        Secretary secretary = gym.getSecretary();
+        Person omer = new Person("Omer", 100, Gender.Male, "15-06-1985");
+        Instructor ninja = secretary.hireInstructor(omer, 50, new ArrayList<>(List.of(SessionType.Ninja, SessionType.Pilates)));
+        // the first payroll takes this instructor's balance past the int range
+        Person tal = new Person("Tal", Integer.MAX_VALUE - 10, Gender.Female, "1990-03-04");
+        Instructor yoga = secretary.hireInstructor(tal, 70,
+                new ArrayList<>(List.of(SessionType.Pilates, SessionType.MachinePilates)));
+        // the instructor also trains as a client, sharing one balance
+        secretary.registerClient(omer);
+        for (int i = 0; i < 8; i++) {
+            secretary.registerClient(new Person("Client" + i, 1000, i % 2 == 0 ? Gender.Female : Gender.Male,
+                    String.format("%02d-%02d-19%d", 1 + i, 1 + i, 50 + i * 5)));
+        }
+        Session small = secretary.addSession(SessionType.Ninja, "02-01-2030 10:00", ForumType.All, ninja);
+        secretary.addSession(SessionType.Pilates, "02-01-2030 18:00", ForumType.Female, yoga);
+        secretary.addSession(SessionType.MachinePilates, "03-01-2030 08:30", ForumType.Seniors, yoga);
+        secretary.addSession(SessionType.Pilates, "05-01-2030 12:00", ForumType.All, ninja);
+
+        List<Client> clients = new ArrayList<>(gym.clients.values());
+        for (Session s : gym.sessions) {
+            for (Client c : clients) {
+                secretary.tryRegisterClientToLesson(c, s);
+            }
+        }
+        // the Ninja session is full and keeps the rest waiting
+        if (gym.getWaitlist(small).isEmpty()) {
+            throw new IllegalStateException("The scenario expects a waitlist");
+        }
+    }
+
+    /**
+     * Plays the second part of the scenario: promotions, notifications, payroll and a new secretary.
+     */
+    static void carryOn(Gym gym) throws Exception {
+        Secretary secretary = gym.getSecretary();
+        Session small = gym.sessions.get(0);
+        List<Client> waiting = gym.getWaitlist(small);
+        // one waiting client leaves before their turn, then a participant frees a seat
+        secretary.unregisterClient(waiting.get(0));
+        int[] participants = gym.getClientIds(small);
+        secretary.unregisterClient(gym.clients.get(participants[participants.length - 1]));
+
+        secretary.notify(small, "Bring water");
+        secretary.notify("02-01-2030", "Parking is closed on Thursday");
+        secretary.notify("Happy new year");
+        secretary.paySalaries();
+
+        // IDs are handed out process-wide, so a gym and its copy only agree on a new person's ID if it is given
+        Person.reserveIdsUpTo(NEXT_SECRETARY_ID);
+        gym.setSecretary(new Person("Noa", new Person.Balance(0), Gender.Female, "10-10-1992", NEXT_SECRETARY_ID), 8500);
+        gym.getSecretary().notify("Noa is the new secretary");
+        gym.getSecretary().flush();
+    }
+
+    /**
+     * Describes everything a restored gym must have kept, in a form two gyms can be compared by.
+     */
+    static String describe(Gym gym) {
+        gym.getSecretary().flush();
+        StringBuilder sb = new StringBuilder(gym.toString()).append('\n');
+        sb.append("Gym balance: ").append(gym.getBalanceGym()).append('\n');
+        long now = gym.clock.millis();
+        for (Client c : gym.clients.values()) {
+            sb.append("Client ").append(c.getId()).append(": ").append(c.getBalanceLong())
+                    .append(' ').append(c.getNotifications(now)).append('\n');
+        }
+        synchronized (gym.instructors) {
+            for (Instructor i : gym.instructors) {
+                sb.append("Instructor ").append(i.getId()).append(": ").append(i.getBalanceLong())
+                        .append(" unpaid ").append(gym.payroll.getUnpaid(i)).append('\n');
+            }
+        }
+        for (Session s : gym.sessions) {
+            sb.append("Session ").append(s.getId()).append(' ').append(s.getType()).append(' ').append(s.getDateTime())
+                    .append(" participants ").append(Arrays.toString(gym.getClientIds(s)))
+                    .append(" waiting");
+            for (Client c : gym.getWaitlist(s)) {
+                sb.append(' ').append(c.getId());
+            }
+            sb.append('\n');
+        }
+        ByteArrayOutputStream history = new ByteArrayOutputStream();
+        gym.actionsHistory.print(0, new PrintStream(history, true, StandardCharsets.UTF_8));
+        return sb.append(history.toString(StandardCharsets.UTF_8)).toString();
+    }
+}
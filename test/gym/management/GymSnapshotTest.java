@@ -0,0 +1,84 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.customers.Instructor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GymSnapshotTest {
+    @TempDir
+    Path dir;
+
+    private final List<Gym> gyms = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        for (Gym gym : gyms) {
+            gym.close();
+        }
+    }
+
+    @Test
+    void restoresTheSavedState() throws Exception {
+        Gym live = gym();
+        GymScenario.setUp(live);
+        GymScenario.carryOn(live);
+        Path file = dir.resolve("gym.snapshot");
+        GymSnapshot.save(live, file);
+
+        Gym restored = gym();
+        GymSnapshot.load(file, restored);
+
+        assertEquals(GymScenario.describe(live), GymScenario.describe(restored));
+    }
+
+    @Test
+    void restoredGymCarriesOnLikeTheOriginal() throws Exception {
+        Gym live = gym();
+        GymScenario.setUp(live);
+        Path file = dir.resolve("gym.snapshot");
+        GymSnapshot.save(live, file);
+        Gym restored = gym();
+        GymSnapshot.load(file, restored);
+
+        GymScenario.carryOn(live);
+        GymScenario.carryOn(restored);
+
+        assertEquals(GymScenario.describe(live), GymScenario.describe(restored));
+    }
+
+    @Test
+    void storesBalancesPastTheIntRangeOncePerPerson() throws Exception {
+        Gym live = gym();
+        GymScenario.setUp(live);
+        GymScenario.carryOn(live);
+        Path file = dir.resolve("gym.snapshot");
+        GymSnapshot.save(live, file);
+
+        Gym restored = gym();
+        GymSnapshot.load(file, restored);
+
+        Instructor instructor = restored.instructors.get(0);
+        Client client = restored.clients.get(instructor.getId());
+        assertSame(instructor.getBalance(), client.getBalance());
+        assertTrue(restored.instructors.get(1).getBalanceLong() > Integer.MAX_VALUE);
+        assertEquals(GymSnapshot.SCHEMA_VERSION, ByteBuffer.wrap(Files.readAllBytes(file)).getInt(4));
+    }
+
+    private Gym gym() {
+        Gym gym = GymScenario.newGym();
+        gyms.add(gym);
+        return gym;
+    }
+}
@@ -0,0 +1,112 @@
+package gym.management;
+
+import gym.customers.Gender;
+import gym.customers.Instructor;
+import gym.customers.Person;
+import gym.management.Sessions.ForumType;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionType;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Pilates and ThaiBoxing sessions last 60 minutes and Ninja sessions 45, as set in session-types.properties.
+ */
+class ScheduleTest {
+    private static final LocalDateTime TEN = LocalDateTime.of(2030, 3, 14, 10, 0);
+
+    private Schedule schedule;
+    private Instructor instructor;
+    private Session pilates;
+
+    @BeforeEach
+    void setUp() {
+        schedule = new Schedule();
+        instructor = instructor("Yael");
+        pilates = new Session(SessionType.Pilates, instructor, TEN, ForumType.All);
+        schedule.add(pilates);
+    }
+
+    @Test
+    void allowsSessionsThatMeetEndToStart() {
+        assertNull(schedule.findConflict(session(SessionType.Ninja, TEN.plusMinutes(60))));
+        assertNull(schedule.findConflict(session(SessionType.Ninja, TEN.minusMinutes(45))));
+    }
+
+    @Test
+    void rejectsSessionsOverlappingByOneMinute() {
+        assertSame(pilates, schedule.findConflict(session(SessionType.Ninja, TEN.plusMinutes(59))));
+        assertSame(pilates, schedule.findConflict(session(SessionType.Ninja, TEN.minusMinutes(44))));
+        assertSame(pilates, schedule.findConflict(session(SessionType.ThaiBoxing, TEN)));
+    }
+
+    @Test
+    void checksTheSessionsOnBothSidesOfAGap() {
+        Session later = session(SessionType.Pilates, TEN.plusHours(2));
+        schedule.add(later);
+
+        assertNull(schedule.findConflict(session(SessionType.Pilates, TEN.plusHours(1))));
+        assertSame(pilates, schedule.findConflict(session(SessionType.Ninja, TEN.plusMinutes(50))));
+        assertSame(later, schedule.findConflict(session(SessionType.Ninja, TEN.plusMinutes(80))));
+    }
+
+    @Test
+    void checksSessionsAcrossMidnight() {
+        LocalDateTime lateEvening = LocalDate.of(2030, 3, 14).atTime(23, 30);
+        Session late = session(SessionType.Pilates, lateEvening);
+        schedule.add(late);
+
+        assertSame(late, schedule.findConflict(session(SessionType.Ninja, lateEvening.plusMinutes(45))));
+        assertNull(schedule.findConflict(session(SessionType.Ninja, lateEvening.plusMinutes(60))));
+    }
+
+    @Test
+    void findsExactDuplicatesOnly() {
+        assertSame(pilates, schedule.findDuplicate(new Session(SessionType.Pilates, instructor, TEN, ForumType.All)));
+        assertNull(schedule.findDuplicate(new Session(SessionType.Pilates, instructor, TEN, ForumType.Female)));
+        assertNull(schedule.findDuplicate(session(SessionType.Pilates, TEN.plusMinutes(1))));
+    }
+
+    @Test
+    void keepsTheTimetablesOfInstructorsApart() {
+        Session other = new Session(SessionType.Pilates, instructor("Noam"), TEN, ForumType.All);
+
+        assertNull(schedule.findConflict(other));
+        assertNull(schedule.findDuplicate(other));
+    }
+
+    @Test
+    void keepsTheFirstOfOverlappingLoadedSessions() {
+        Schedule loaded = new Schedule();
+        Session first = session(SessionType.Pilates, TEN);
+        loaded.load(first);
+        loaded.load(session(SessionType.Ninja, TEN.plusMinutes(30)));
+        loaded.load(new Session(SessionType.Pilates, null, TEN, ForumType.All));
+
+        assertSame(first, loaded.findConflict(session(SessionType.Ninja, TEN.plusMinutes(59))));
+        assertNull(loaded.findConflict(session(SessionType.Ninja, TEN.plusMinutes(60))));
+    }
+
+    @Test
+    void readsTheSessionLengthsFromTheirTypes() {
+        assertEquals(60, pilates.getDurationMinutes());
+        assertEquals(45, session(SessionType.Ninja, TEN).getDurationMinutes());
+    }
+
+    private Session session(SessionType type, LocalDateTime start) {
+        return new Session(type, instructor, start, ForumType.All);
+    }
+
+    private static Instructor instructor(String name) {
+        Person person = new Person(name, 0, Gender.Female, LocalDate.of(1990, 1, 1));
+        return new Instructor(person, 100, List.of(SessionType.values()));
+    }
+}
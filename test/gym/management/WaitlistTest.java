@@ -0,0 +1,123 @@
+package gym.management;
+
+import gym.customers.Client;
+import gym.customers.Gender;
+import gym.customers.Instructor;
+import gym.customers.Person;
+import gym.management.Sessions.ForumType;
+import gym.management.Sessions.Session;
+import gym.management.Sessions.SessionType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Waitlist promotion through the secretary. Ninja sessions hold five clients and cost 150.
+ */
+class WaitlistTest {
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 9, 0);
+
+    private Gym gym;
+    private Secretary secretary;
+    private Session session;
+    private final List<Client> clients = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() throws Exception {
+        gym = new Gym();
+        gym.clock.setFixed(NOW);
+        gym.setSecretary(new Person("Dana", 0, Gender.Female, "01-01-1980"), 1000);
+        secretary = gym.getSecretary();
+        Instructor instructor = secretary.hireInstructor(new Person("Omer", 0, Gender.Male, "01-01-1985"), 50,
+                new ArrayList<>(List.of(SessionType.Ninja)));
+        session = secretary.addSession(SessionType.Ninja, "02-01-2030 10:00", ForumType.All, instructor);
+        for (int i = 0; i < 8; i++) {
+            clients.add(secretary.registerClient(new Person("Client" + i, 1000, Gender.Female, "01-01-1990")));
+        }
+        for (int i = 0; i < session.getMaxParticipants(); i++) {
+            assertTrue(BookingResult.isBooked(secretary.tryRegisterClientToLesson(clients.get(i), session)));
+        }
+    }
+
+    @AfterEach
+    void tearDown() {
+        gym.close();
+    }
+
+    @Test
+    void waitlistsClientsOnceWhenTheSessionIsFull() {
+        int result = secretary.tryRegisterClientToLesson(clients.get(5), session);
+        secretary.tryRegisterClientToLesson(clients.get(6), session);
+        secretary.tryRegisterClientToLesson(clients.get(5), session);
+
+        assertEquals(BookingResult.NO_SPOTS | BookingResult.WAITLISTED, result);
+        assertEquals(List.of(clients.get(5), clients.get(6)), gym.getWaitlist(session));
+        assertEquals(1000, clients.get(5).getBalanceLong());
+    }
+
+    @Test
+    void promotesTheLongestWaitingClientWhenAParticipantLeaves() throws Exception {
+        secretary.tryRegisterClientToLesson(clients.get(5), session);
+        secretary.tryRegisterClientToLesson(clients.get(6), session);
+        long gymBalance = gym.getBalanceGym();
+
+        secretary.unregisterClient(clients.get(0));
+        secretary.flush();
+
+        assertTrue(session.hasParticipant(clients.get(5)));
+        assertFalse(session.hasParticipant(clients.get(6)));
+        assertEquals(List.of(clients.get(6)), gym.getWaitlist(session));
+        assertEquals(850, clients.get(5).getBalanceLong());
+        assertEquals(gymBalance + 150, gym.getBalanceGym());
+        assertEquals(List.of(session), gym.getSessions(clients.get(5)));
+        assertEquals(List.of("A spot opened up: you are now registered to the Ninja session on 02-01-2030 10:00"),
+                clients.get(5).getNotifications(gym.clock.millis()));
+    }
+
+    @Test
+    void skipsWaitingClientsWhoLeftTheGym() throws Exception {
+        secretary.tryRegisterClientToLesson(clients.get(5), session);
+        secretary.tryRegisterClientToLesson(clients.get(6), session);
+
+        secretary.unregisterClient(clients.get(5));
+        secretary.unregisterClient(clients.get(0));
+
+        assertTrue(session.hasParticipant(clients.get(6)));
+        assertEquals(List.of(), gym.getWaitlist(session));
+    }
+
+    @Test
+    void dropsWaitingClientsWhoNoLongerPassTheChecks() throws Exception {
+        secretary.tryRegisterClientToLesson(clients.get(5), session);
+        secretary.tryRegisterClientToLesson(clients.get(6), session);
+        clients.get(5).getBalance().reduceBalance(900);
+
+        secretary.unregisterClient(clients.get(0));
+
+        assertFalse(session.hasParticipant(clients.get(5)));
+        assertTrue(session.hasParticipant(clients.get(6)));
+        assertEquals(100, clients.get(5).getBalanceLong());
+        assertEquals(List.of(), gym.getWaitlist(session));
+    }
+
+    @Test
+    void promotesNobodyOnceTheSessionHasStarted() throws Exception {
+        secretary.tryRegisterClientToLesson(clients.get(5), session);
+        gym.clock.setFixed(session.getDateTime());
+
+        secretary.unregisterClient(clients.get(0));
+
+        assertFalse(session.hasParticipant(clients.get(5)));
+        assertEquals(session.getMaxParticipants() - 1, session.getParticipantCount());
+        assertEquals(List.of(), gym.getWaitlist(session));
+        assertEquals(1000, clients.get(5).getBalanceLong());
+    }
+}
@@ -0,0 +1,87 @@
+package gym.management;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class WriteAheadLogTest {
+    @TempDir
+    Path dir;
+
+    private final List<Gym> gyms = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        for (Gym gym : gyms) {
+            gym.close();
+        }
+    }
+
+    @Test
+    void recoversTheLiveStateFromTheLogAlone() throws Exception {
+        Path logDir = dir.resolve("wal");
+        Gym live = gym();
+        live.setWriteAheadLog(new WriteAheadLog(logDir));
+        GymScenario.setUp(live);
+        GymScenario.carryOn(live);
+        String expected = GymScenario.describe(live);
+        live.close();
+
+        Gym recovered = gym();
+        WriteAheadLog.recover(recovered, dir.resolve("gym.snapshot"), logDir);
+
+        assertEquals(expected, GymScenario.describe(recovered));
+    }
+
+    @Test
+    void recoversTheLiveStateFromACheckpointAndTheLogAfterIt() throws Exception {
+        Path logDir = dir.resolve("wal");
+        Path snapshot = dir.resolve("gym.snapshot");
+        Gym live = gym();
+        WriteAheadLog wal = new WriteAheadLog(logDir);
+        live.setWriteAheadLog(wal);
+        GymScenario.setUp(live);
+        wal.checkpoint(live, snapshot);
+        GymScenario.carryOn(live);
+        String expected = GymScenario.describe(live);
+        live.close();
+
+        Gym recovered = gym();
+        WriteAheadLog.recover(recovered, snapshot, logDir);
+
+        assertEquals(expected, GymScenario.describe(recovered));
+    }
+
+    @Test
+    void keepsLoggingAfterRecovery() throws Exception {
+        Path logDir = dir.resolve("wal");
+        Path snapshot = dir.resolve("gym.snapshot");
+        Gym live = gym();
+        live.setWriteAheadLog(new WriteAheadLog(logDir));
+        GymScenario.setUp(live);
+        live.close();
+
+        Gym restarted = gym();
+        WriteAheadLog.recover(restarted, snapshot, logDir);
+        GymScenario.carryOn(restarted);
+        String expected = GymScenario.describe(restarted);
+        restarted.close();
+
+        Gym recovered = gym();
+        WriteAheadLog.recover(recovered, snapshot, logDir);
+
+        assertEquals(expected, GymScenario.describe(recovered));
+    }
+
+    private Gym gym() {
+        Gym gym = GymScenario.newGym();
+        gyms.add(gym);
+        return gym;
+    }
+}
@@ -0,0 +1,129 @@
+package gym.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checks that every input gets the same date, or the same exception with the same message, from the codec as from
+ * the regular expressions and formatters it replaced.
+ */
+class DateCodecTest {
+    private static final DateTimeFormatter DAY_FIRST = DateTimeFormatter.ofPattern("dd-MM-yyyy");
+    private static final DateTimeFormatter ISO = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("dd-MM-yyyy HH:mm");
+    private static final Pattern ISO_DATE = Pattern.compile("\\d{4}-\\d{2}-\\d{2}");
+    private static final Pattern DAY_FIRST_DATE = Pattern.compile("\\d{2}-\\d{2}-\\d{4}");
+
+    private static final int[] YEARS = {0, 1, 4, 99, 100, 400, 1900, 1970, 1999, 2000, 2023, 2024, 2100, 9999};
+
+    /** The birth date parsing of Person before the codec. */
+    private static LocalDate oldBirthDate(String birthDate) {
+        if (ISO_DATE.matcher(birthDate).matches()) {
+            return LocalDate.parse(birthDate, ISO);
+        } else if (DAY_FIRST_DATE.matcher(birthDate).matches()) {
+            return LocalDate.parse(birthDate, DAY_FIRST);
+        } else {
+            throw new IllegalArgumentException("Invalid birth date format: " + birthDate);
+        }
+    }
+
+    @Test
+    void parsesDatesLikeTheFormatter() {
+        for (String text : dates()) {
+            assertSame(text, t -> LocalDate.parse(t, DAY_FIRST), DateCodec::parseDate);
+        }
+        for (String text : fuzz(10, "0123456789-/ a", 20_000)) {
+            assertSame(text, t -> LocalDate.parse(t, DAY_FIRST), DateCodec::parseDate);
+        }
+    }
+
+    @Test
+    void parsesBirthDatesLikeThePatternsAndFormatters() {
+        List<String> inputs = dates();
+        for (String date : dates()) {
+            inputs.add(date.substring(6) + date.substring(2, 6) + date.substring(0, 2));
+        }
+        inputs.addAll(fuzz(10, "0123456789-/ ", 40_000));
+        inputs.addAll(List.of("", "1-1-2000", "2000-1-1", "01-01-20000", "+2000-01-01", "２０００-01-01"));
+        for (String text : inputs) {
+            assertSame(text, DateCodecTest::oldBirthDate, DateCodec::parseBirthDate);
+        }
+    }
+
+    @Test
+    void parsesSessionTimesLikeTheFormatter() {
+        List<String> inputs = new ArrayList<>();
+        for (String date : dates()) {
+            inputs.add(date + " 00:00");
+            inputs.add(date + " 23:59");
+        }
+        for (int hour = 0; hour <= 25; hour++) {
+            for (int minute = 0; minute <= 61; minute++) {
+                inputs.add(String.format("29-02-2024 %02d:%02d", hour, minute));
+            }
+        }
+        inputs.addAll(fuzz(16, "0123456789-: ", 20_000));
+        for (String text : inputs) {
+            assertSame(text, t -> LocalDateTime.parse(t, DATE_TIME), DateCodec::parseDateTime);
+        }
+    }
+
+    /**
+     * Every day-first date with a day from 00 to 32 and a month from 00 to 13 in years around the leap year rules.
+     */
+    private static List<String> dates() {
+        List<String> dates = new ArrayList<>();
+        for (int year : YEARS) {
+            for (int month = 0; month <= 13; month++) {
+                for (int day = 0; day <= 32; day++) {
+                    dates.add(String.format("%02d-%02d-%04d", day, month, year));
+                }
+            }
+        }
+        return dates;
+    }
+
+    /**
+     * Random strings of a fixed length, most of them close to a valid date so the fast paths are exercised.
+     */
+    private static List<String> fuzz(int length, String alphabet, int count) {
+        Random random = new Random(length * 31L + count);
+        List<String> valid = dates();
+        List<String> inputs = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            StringBuilder sb = new StringBuilder(valid.get(random.nextInt(valid.size())));
+            if (length == 16) {
+                sb.append(String.format(" %02d:%02d", random.nextInt(24), random.nextInt(60)));
+            }
+            sb.setLength(length);
+            for (int changes = random.nextInt(3); changes > 0; changes--) {
+                sb.setCharAt(random.nextInt(length), alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            inputs.add(sb.toString());
+        }
+        return inputs;
+    }
+
+    private static <T> void assertSame(String text, Function<String, T> expected, Function<String, T> actual) {
+        assertEquals(outcome(text, expected), outcome(text, actual), "input \"" + text + "\"");
+    }
+
+    private static String outcome(String text, Function<String, ?> parser) {
+        try {
+            return Objects.toString(parser.apply(text));
+        } catch (RuntimeException e) {
+            return e.getClass().getName() + ": " + e.getMessage();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package gym.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class IntLinkedMapTest {
+
+    @Test
+    void keepsInsertionOrderAcrossUpdatesAndRemovals() {
+        IntLinkedMap<String> map = new IntLinkedMap<>();
+        map.put(3, "c");
+        map.put(1, "a");
+        map.put(2, "b");
+        map.put(1, "A");
+        map.remove(3);
+        map.put(3, "C");
+
+        assertEquals(List.of("A", "b", "C"), new ArrayList<>(map.values()));
+        assertEquals(3, map.size());
+    }
+
+    /**
+     * Removing a key must shift the rest of its probe chain back, otherwise keys placed after it in the chain are
+     * lost. A small table under random inserts and removals has long chains, which also wrap around its end.
+     */
+    @Test
+    void findsEveryKeyAfterBackwardShiftDeletes() {
+        Random random = new Random(42);
+        IntLinkedMap<Integer> map = new IntLinkedMap<>();
+        Map<Integer, Integer> expected = new LinkedHashMap<>();
+        for (int step = 0; step < 200_000; step++) {
+            int key = random.nextInt(48) - 8;
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key), map.remove(key));
+            } else {
+                assertEquals(expected.put(key, step), map.put(key, step));
+            }
+            if (step % 97 == 0) {
+                for (int k = -8; k < 40; k++) {
+                    assertEquals(expected.get(k), map.get(k), "key " + k + " at step " + step);
+                    assertEquals(expected.containsKey(k), map.containsKey(k));
+                }
+                assertEquals(new ArrayList<>(expected.values()), new ArrayList<>(map.values()));
+            }
+        }
+    }
+
+    @Test
+    void removesEveryOtherKeyOfADenseRange() {
+        IntLinkedMap<Integer> map = new IntLinkedMap<>(4);
+        for (int i = 0; i < 1000; i++) {
+            map.put(i, i);
+        }
+        for (int i = 0; i < 1000; i += 2) {
+            assertEquals(i, map.remove(i));
+        }
+        for (int i = 0; i < 1000; i++) {
+            if (i % 2 == 0) {
+                assertNull(map.get(i));
+            } else {
+                assertEquals(i, map.get(i));
+            }
+        }
+        assertEquals(500, map.size());
+    }
+
+    @Test
+    void removesThroughTheValueIterator() {
+        IntLinkedMap<Integer> map = new IntLinkedMap<>();
+        for (int i = 0; i < 100; i++) {
+            map.put(i * 31, i);
+        }
+        for (Iterator<Integer> it = map.values().iterator(); it.hasNext(); ) {
+            if (it.next() % 3 != 0) {
+                it.remove();
+            }
+        }
+        for (int i = 0; i < 100; i++) {
+            assertEquals(i % 3 == 0, map.containsKey(i * 31));
+        }
+        assertEquals(34, map.size());
+        assertTrue(map.putIfAbsent(1, 1));
+        assertFalse(map.putIfAbsent(1, 2));
+    }
+}